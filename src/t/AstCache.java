@@ -0,0 +1,874 @@
+package t;
+
+import t.types.Bool;
+import t.types.Char;
+import t.types.Namespace;
+import t.types.Real;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AstCache {
+    private static final int MAGIC = 0x54415354;
+    private static final int VERSION = 11;
+
+    private static final int NULL = 0;
+
+    private static final int DECLARATION = 1;
+    private static final int VAR = 2;
+    private static final int LITERAL = 3;
+    private static final int GROUPING = 4;
+    private static final int ASSIGN = 5;
+    private static final int BINARY = 6;
+    private static final int UNARY = 7;
+    private static final int LOGICAL = 8;
+    private static final int CALL = 9;
+    private static final int GET = 10;
+    private static final int SLICE = 11;
+    private static final int RETURN = 12;
+    private static final int THIS = 13;
+    private static final int SUPER = 14;
+    private static final int PARAM = 15;
+    private static final int MEMBER = 16;
+    private static final int INLINE = 17;
+    private static final int CACHED = 18;
+    private static final int LIST = 19;
+    private static final int MAP = 20;
+
+    private static final int FUNCTION = 32;
+    private static final int STRUCT = 33;
+    private static final int NAMESPACE = 34;
+    private static final int ENUM = 35;
+    private static final int FOR = 36;
+    private static final int BLOCK = 37;
+    private static final int EXPRESSION = 38;
+    private static final int IF = 39;
+    private static final int ERROR = 40;
+    private static final int WHILE = 41;
+    private static final int INCLUDE = 42;
+
+    private static final int LITERAL_NIL = 0;
+    private static final int LITERAL_REAL = 1;
+    private static final int LITERAL_CHAR = 2;
+    private static final int LITERAL_BOOL = 3;
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private final Path dir;
+    private final String variant;
+
+    AstCache(Path dir, String variant) {
+        this.dir = dir;
+        this.variant = variant;
+    }
+
+    public List<Stmt> load(String text, Interpreter interpreter) {
+        String hash = hash(text);
+        Path file = dir.resolve(hash + ".tast");
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(hash)) {
+                return null;
+            }
+            return new Reader(in, interpreter).readStmts();
+        }
+        catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static void force(List<Stmt> stmts, Interpreter interpreter) {
+        new Forcer(interpreter).rewrite(stmts);
+    }
+
+    public void store(String text, List<Stmt> stmts, Interpreter interpreter) {
+        String hash = hash(text);
+        try {
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, hash, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(hash);
+                new Writer(out, interpreter).writeStmts(stmts);
+            }
+            catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            Files.move(temp, dir.resolve(hash + ".tast"), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException | RuntimeException e) {
+            System.err.println("Could not write AST cache: " + e.getMessage());
+        }
+    }
+
+    private String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(variant.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte)0);
+            byte[] bytes = digest.digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : bytes) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //=================================Forcer==================================
+
+    private static class Forcer extends AstRewriter {
+        Forcer(Interpreter interpreter) {
+            super(interpreter);
+        }
+
+        @Override
+        public Stmt visitFunctionStmt(Stmt.Function stmt) {
+            try {
+                stmt.getBody();
+            }
+            catch (RuntimeError e) {
+                return stmt;
+            }
+            return super.visitFunctionStmt(stmt);
+        }
+    }
+
+    //=================================Writer==================================
+
+    private static class Writer implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
+        private final DataOutputStream out;
+        private final Interpreter interpreter;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<Stmt.Function, Integer> functions = new IdentityHashMap<>();
+        private final Map<Stmt.Namespace, Integer> namespaces = new IdentityHashMap<>();
+
+        Writer(DataOutputStream out, Interpreter interpreter) {
+            this.out = out;
+            this.interpreter = interpreter;
+        }
+
+        void writeStmts(List<Stmt> stmts) throws IOException {
+            try {
+                writeStmtList(stmts);
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void writeInt(int value) {
+            try {
+                while ((value & ~0x7F) != 0) {
+                    out.writeByte((value & 0x7F) | 0x80);
+                    value >>>= 7;
+                }
+                out.writeByte(value);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeBoolean(boolean value) {
+            writeInt(value ? 1 : 0);
+        }
+
+        private void writeCaptures(Map<String, Integer> captures) {
+            if (captures == null) {
+                writeInt(0);
+                return;
+            }
+            writeInt(captures.size() + 1);
+            for (Map.Entry<String, Integer> capture : captures.entrySet()) {
+                writeString(capture.getKey());
+                writeInt(capture.getValue());
+            }
+        }
+
+        private void writeString(String value) {
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeInt(index + 1);
+                return;
+            }
+            strings.put(value, strings.size());
+            writeInt(0);
+            try {
+                out.writeUTF(value);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeValue(Object value) {
+            try {
+                if (value instanceof Real) {
+                    writeInt(LITERAL_REAL);
+                    out.writeDouble(((Real)value).getValue());
+                }
+                else if (value instanceof Char) {
+                    writeInt(LITERAL_CHAR);
+                    writeString(((Char)value).getValue());
+                }
+                else if (value instanceof Bool) {
+                    writeInt(LITERAL_BOOL);
+                    writeBoolean(((Bool)value).getValue());
+                }
+                else if (value == null) {
+                    writeInt(LITERAL_NIL);
+                }
+                else {
+                    throw new IllegalArgumentException("Cannot cache literal " + value + ".");
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeToken(Token token) {
+            if (token == null) {
+                writeInt(0);
+                return;
+            }
+            writeInt(token.getType().ordinal() + 1);
+            writeString(token.getLexeme());
+            writeValue(token.getLiteral());
+            writeInt(token.getLine());
+        }
+
+        private void writeTokens(List<Token> tokens) {
+            writeInt(tokens.size());
+            for (Token token : tokens) {
+                writeToken(token);
+            }
+        }
+
+        private void writeExpr(Expr expr) {
+            if (expr == null) {
+                writeInt(NULL);
+                return;
+            }
+            expr.accept(this);
+            Integer distance = interpreter.distanceOf(expr);
+            writeInt(distance == null ? 0 : distance + 1);
+        }
+
+        private void writeExprList(List<? extends Expr> exprs) {
+            if (exprs == null) {
+                writeInt(0);
+                return;
+            }
+            writeInt(exprs.size() + 1);
+            for (Expr expr : exprs) {
+                writeExpr(expr);
+            }
+        }
+
+        private void writeStmt(Stmt stmt) {
+            if (stmt == null) {
+                writeInt(NULL);
+                return;
+            }
+            stmt.accept(this);
+        }
+
+        private void writeStmtList(List<? extends Stmt> stmts) {
+            writeInt(stmts.size());
+            for (Stmt stmt : stmts) {
+                writeStmt(stmt);
+            }
+        }
+
+        private void writeIndices(List<? extends Stmt> subset, List<Stmt> body) {
+            writeInt(subset.size());
+            for (Stmt stmt : subset) {
+                writeInt(body.indexOf(stmt));
+            }
+        }
+
+        //=================================Expr================================
+
+        @Override
+        public Void visitDeclarationExpr(Expr.Declaration expr) {
+            writeInt(DECLARATION);
+            writeToken(expr.getType());
+            writeToken(expr.getName());
+            writeExpr(expr.getValue());
+            writeBoolean(expr.isTypeChecked());
+            writeBoolean(expr.isBoxed());
+            return null;
+        }
+
+        @Override
+        public Void visitVarExpr(Expr.Var expr) {
+            writeInt(VAR);
+            writeToken(expr.getName());
+            return null;
+        }
+
+        @Override
+        public Void visitLiteralExpr(Expr.Literal expr) {
+            writeInt(LITERAL);
+            writeValue(expr.getValue());
+            return null;
+        }
+
+        @Override
+        public Void visitGroupingExpr(Expr.Grouping expr) {
+            writeInt(GROUPING);
+            writeExpr(expr.getExpr());
+            return null;
+        }
+
+        @Override
+        public Void visitAssignExpr(Expr.Assign expr) {
+            writeInt(ASSIGN);
+            writeExpr(expr.getTarget());
+            writeExpr(expr.getValue());
+            writeToken(expr.getOperator());
+            writeBoolean(expr.isTypeChecked());
+            return null;
+        }
+
+        @Override
+        public Void visitBinaryExpr(Expr.Binary expr) {
+            writeInt(BINARY);
+            writeExpr(expr.getLeft());
+            writeToken(expr.getOperator());
+            writeExpr(expr.getRight());
+            return null;
+        }
+
+        @Override
+        public Void visitUnaryExpr(Expr.Unary expr) {
+            writeInt(UNARY);
+            writeExpr(expr.getExpr());
+            writeToken(expr.getOperator());
+            return null;
+        }
+
+        @Override
+        public Void visitLogicalExpr(Expr.Logical expr) {
+            writeInt(LOGICAL);
+            writeExpr(expr.getLeft());
+            writeToken(expr.getOperator());
+            writeExpr(expr.getRight());
+            return null;
+        }
+
+        @Override
+        public Void visitCallExpr(Expr.Call expr) {
+            writeInt(CALL);
+            writeExpr(expr.getCallee());
+            writeExprList(expr.getArgs());
+            writeToken(expr.getMarker());
+            Integer callee = functions.get(expr.getCheckedCallee());
+            writeInt(callee == null ? 0 : callee + 1);
+            return null;
+        }
+
+        @Override
+        public Void visitInlineExpr(Expr.Inline expr) {
+            Integer function = functions.get(expr.getFunction());
+            if (function == null) {
+                return visitCallExpr(expr.getCall());
+            }
+            writeInt(INLINE);
+            writeExpr(expr.getCall());
+            writeInt(function);
+            writeTokens(expr.getLocals());
+            writeExpr(expr.getBody());
+            return null;
+        }
+
+        @Override
+        public Void visitCachedExpr(Expr.Cached expr) {
+            writeInt(CACHED);
+            writeToken(expr.getSlot());
+            writeExpr(expr.getExpr());
+            writeBoolean(expr.isFresh());
+            return null;
+        }
+
+        @Override
+        public Void visitGetExpr(Expr.Get expr) {
+            writeInt(GET);
+            writeExpr(expr.getExpr());
+            writeToken(expr.getName());
+            Stmt.Namespace namespace = expr.getNamespace();
+            Integer id = namespaces.get(namespace);
+            Namespace builtin = namespace == null ? null : interpreter.builtin(namespace.getName().getLexeme());
+            if (id != null) {
+                writeInt(id + 2);
+                writeInt(expr.getSlot());
+            }
+            else if (builtin != null && builtin.getDeclaration() == namespace) {
+                writeInt(1);
+                writeString(namespace.getName().getLexeme());
+                writeInt(expr.getSlot());
+            }
+            else {
+                writeInt(0);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitSliceExpr(Expr.Slice expr) {
+            writeInt(SLICE);
+            writeToken(expr.getToken());
+            writeExpr(expr.getSlicee());
+            writeExpr(expr.getSlicing());
+            writeExpr(expr.getEnd());
+            return null;
+        }
+
+        @Override
+        public Void visitListLiteralExpr(Expr.ListLiteral expr) {
+            writeInt(LIST);
+            writeToken(expr.getToken());
+            writeExprList(expr.getElements());
+            return null;
+        }
+
+        @Override
+        public Void visitMapLiteralExpr(Expr.MapLiteral expr) {
+            writeInt(MAP);
+            writeToken(expr.getToken());
+            writeExprList(expr.getKeys());
+            writeExprList(expr.getValues());
+            return null;
+        }
+
+        @Override
+        public Void visitReturnExpr(Expr.Return expr) {
+            writeInt(RETURN);
+            writeToken(expr.getToken());
+            writeExpr(expr.getExpr());
+            return null;
+        }
+
+        @Override
+        public Void visitThisExpr(Expr.This expr) {
+            writeInt(THIS);
+            writeToken(expr.getToken());
+            return null;
+        }
+
+        @Override
+        public Void visitSuperExpr(Expr.Super expr) {
+            writeInt(SUPER);
+            writeToken(expr.getToken());
+            writeToken(expr.getFunction());
+            return null;
+        }
+
+        @Override
+        public Void visitParamExpr(Expr.Param expr) {
+            writeInt(PARAM);
+            writeToken(expr.getType());
+            writeToken(expr.getName());
+            writeBoolean(expr.isBoxed());
+            return null;
+        }
+
+        @Override
+        public Void visitMemberExpr(Expr.Member expr) {
+            writeInt(MEMBER);
+            writeToken(expr.getProtection());
+            writeToken(expr.getType());
+            writeToken(expr.getName());
+            return null;
+        }
+
+        //=================================Stmt================================
+
+        @Override
+        public Void visitFunctionStmt(Stmt.Function stmt) {
+            writeInt(FUNCTION);
+            functions.put(stmt, functions.size());
+            writeToken(stmt.getType());
+            writeToken(stmt.getName());
+            writeExprList(stmt.getParams());
+            writeBoolean(stmt.isMethod());
+            writeBoolean(stmt.isReturnChecked());
+            writeBoolean(stmt.frameEscapes());
+            writeCaptures(stmt.getCaptures());
+            writeStmtList(stmt.getBody());
+            return null;
+        }
+
+        @Override
+        public Void visitStructStmt(Stmt.Struct stmt) {
+            writeInt(STRUCT);
+            writeToken(stmt.getName());
+            writeStmtList(stmt.getFunctions());
+            writeStmtList(stmt.getStructs());
+            writeExprList(stmt.getPrivateAttrs());
+            writeExprList(stmt.getPublicAttrs());
+            writeExprList(stmt.getProtectedAttrs());
+            writeExpr(stmt.getSuperstruct());
+            writeBoolean(stmt.isImmutable());
+            return null;
+        }
+
+        @Override
+        public Void visitNamespaceStmt(Stmt.Namespace stmt) {
+            writeInt(NAMESPACE);
+            writeToken(stmt.getName());
+            writeStmtList(stmt.getBody());
+            writeIndices(stmt.getFunctions(), stmt.getBody());
+            writeIndices(stmt.getStructs(), stmt.getBody());
+            writeIndices(stmt.getNamespaces(), stmt.getBody());
+            namespaces.put(stmt, namespaces.size());
+            return null;
+        }
+
+        @Override
+        public Void visitEnumStmt(Stmt.Enum stmt) {
+            writeInt(ENUM);
+            writeToken(stmt.getName());
+            writeTokens(stmt.getEnums());
+            return null;
+        }
+
+        @Override
+        public Void visitForStmt(Stmt.For stmt) {
+            writeInt(FOR);
+            writeExpr(stmt.getInitializer());
+            writeExpr(stmt.getCondition());
+            writeExpr(stmt.getIncrement());
+            writeStmt(stmt.getBody());
+            writeTokens(stmt.getSlots());
+            return null;
+        }
+
+        @Override
+        public Void visitBlockStmt(Stmt.Block stmt) {
+            writeInt(BLOCK);
+            writeBoolean(stmt.escapes());
+            writeStmtList(stmt.getBody());
+            return null;
+        }
+
+        @Override
+        public Void visitExpressionStmt(Stmt.Expression stmt) {
+            writeInt(EXPRESSION);
+            writeExpr(stmt.getExpr());
+            return null;
+        }
+
+        @Override
+        public Void visitIfStmt(Stmt.If stmt) {
+            writeInt(IF);
+            writeExpr(stmt.getCondition());
+            writeStmt(stmt.getThenBlock());
+            writeStmt(stmt.getElseBlock());
+            return null;
+        }
+
+        @Override
+        public Void visitErrorStmt(Stmt.Error stmt) {
+            writeInt(ERROR);
+            writeToken(stmt.getToken());
+            writeToken(stmt.getType());
+            writeToken(stmt.getMessage());
+            return null;
+        }
+
+        @Override
+        public Void visitWhileStmt(Stmt.While stmt) {
+            writeInt(WHILE);
+            writeExpr(stmt.getCondition());
+            writeStmt(stmt.getBody());
+            writeTokens(stmt.getSlots());
+            return null;
+        }
+
+        @Override
+        public Void visitIncludeStmt(Stmt.Include stmt) {
+            writeInt(INCLUDE);
+            writeToken(stmt.getToken());
+            writeExpr(stmt.getExpr());
+            return null;
+        }
+    }
+
+    //=================================Reader==================================
+
+    private static class Reader {
+        private final DataInputStream in;
+        private final Interpreter interpreter;
+        private final List<String> strings = new ArrayList<>();
+        private final List<Stmt.Function> functions = new ArrayList<>();
+        private final List<Stmt.Namespace> namespaces = new ArrayList<>();
+
+        Reader(DataInputStream in, Interpreter interpreter) {
+            this.in = in;
+            this.interpreter = interpreter;
+        }
+
+        List<Stmt> readStmts() throws IOException {
+            List<Stmt> stmts = readStmtList();
+            if (in.read() != -1) {
+                throw new IOException("Trailing data in AST cache.");
+            }
+            return stmts;
+        }
+
+        private int readInt() throws IOException {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private boolean readBoolean() throws IOException {
+            return readInt() != 0;
+        }
+
+        private Map<String, Integer> readCaptures() throws IOException {
+            int size = readInt();
+            if (size == 0) {
+                return null;
+            }
+            Map<String, Integer> captures = new LinkedHashMap<>();
+            for (int i = 1; i < size; i++) {
+                captures.put(readString(), readInt());
+            }
+            return captures;
+        }
+
+        private String readString() throws IOException {
+            int index = readInt();
+            if (index != 0) {
+                return strings.get(index - 1);
+            }
+            String value = in.readUTF();
+            strings.add(value);
+            return value;
+        }
+
+        private Object readValue() throws IOException {
+            switch (readInt()) {
+                case LITERAL_NIL: return null;
+                case LITERAL_REAL: return new Real(in.readDouble());
+                case LITERAL_CHAR: return new Char(readString());
+                case LITERAL_BOOL: return new Bool(readBoolean());
+                default: throw new IOException("Unknown literal tag.");
+            }
+        }
+
+        private Token readToken() throws IOException {
+            int type = readInt();
+            if (type == 0) {
+                return null;
+            }
+            String lexeme = readString();
+            Object literal = readValue();
+            int line = readInt();
+            return new Token(TOKEN_TYPES[type - 1], lexeme, literal, line);
+        }
+
+        private List<Token> readTokens() throws IOException {
+            int size = readInt();
+            List<Token> tokens = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                tokens.add(readToken());
+            }
+            return tokens;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <E extends Expr> E readExpr() throws IOException {
+            Expr expr;
+            int tag = readInt();
+            switch (tag) {
+                case NULL: return null;
+                case DECLARATION: {
+                    Expr.Declaration declaration = new Expr.Declaration(readToken(), readToken(), readExpr());
+                    declaration.setTypeChecked(readBoolean());
+                    declaration.setBoxed(readBoolean());
+                    expr = declaration;
+                } break;
+                case VAR: expr = new Expr.Var(readToken()); break;
+                case LITERAL: expr = new Expr.Literal(readValue()); break;
+                case GROUPING: expr = new Expr.Grouping(readExpr()); break;
+                case ASSIGN: {
+                    Expr.Assign assign = new Expr.Assign(readExpr(), readExpr(), readToken());
+                    assign.setTypeChecked(readBoolean());
+                    expr = assign;
+                } break;
+                case BINARY: expr = new Expr.Binary(readExpr(), readToken(), readExpr()); break;
+                case UNARY: expr = new Expr.Unary(readExpr(), readToken()); break;
+                case LOGICAL: expr = new Expr.Logical(readExpr(), readToken(), readExpr()); break;
+                case CALL: {
+                    Expr.Call call = new Expr.Call(readExpr(), readExprList(), readToken());
+                    int callee = readInt();
+                    if (callee != 0) {
+                        call.setCheckedCallee(functions.get(callee - 1));
+                    }
+                    expr = call;
+                } break;
+                case INLINE: {
+                    Expr.Call call = readExpr();
+                    Stmt.Function function = functions.get(readInt());
+                    expr = new Expr.Inline(call, function, readTokens(), readExpr());
+                } break;
+                case CACHED: expr = new Expr.Cached(readToken(), readExpr(), readBoolean()); break;
+                case GET: {
+                    Expr.Get get = new Expr.Get(readExpr(), readToken());
+                    int namespace = readInt();
+                    if (namespace == 1) {
+                        get.bind(interpreter.builtin(readString()).getDeclaration(), readInt());
+                    }
+                    else if (namespace != 0) {
+                        get.bind(namespaces.get(namespace - 2), readInt());
+                    }
+                    expr = get;
+                } break;
+                case SLICE: expr = new Expr.Slice(readToken(), readExpr(), readExpr(), readExpr()); break;
+                case LIST: expr = new Expr.ListLiteral(readToken(), readExprList()); break;
+                case MAP: expr = new Expr.MapLiteral(readToken(), readExprList(), readExprList()); break;
+                case RETURN: expr = new Expr.Return(readToken(), readExpr()); break;
+                case THIS: expr = new Expr.This(readToken()); break;
+                case SUPER: expr = new Expr.Super(readToken(), readToken()); break;
+                case PARAM: {
+                    Expr.Param param = new Expr.Param(readToken(), readToken());
+                    param.setBoxed(readBoolean());
+                    expr = param;
+                } break;
+                case MEMBER: expr = new Expr.Member(readToken(), readToken(), readToken()); break;
+                default: throw new IOException("Unknown expression tag " + tag + ".");
+            }
+            int distance = readInt();
+            if (distance != 0) {
+                interpreter.resolve(expr, distance - 1);
+            }
+            return (E)expr;
+        }
+
+        private <E extends Expr> List<E> readExprList() throws IOException {
+            int size = readInt();
+            if (size == 0) {
+                return null;
+            }
+            List<E> exprs = new ArrayList<>(size - 1);
+            for (int i = 0; i < size - 1; i++) {
+                exprs.add(readExpr());
+            }
+            return exprs;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <S extends Stmt> S readStmt() throws IOException {
+            Stmt stmt;
+            int tag = readInt();
+            switch (tag) {
+                case NULL: return null;
+                case FUNCTION: {
+                    Token type = readToken();
+                    Token name = readToken();
+                    List<Expr.Param> params = readExprList();
+                    List<Stmt> body = new ArrayList<>();
+                    Stmt.Function function = new Stmt.Function(type, name, params, body);
+                    functions.add(function);
+                    function.setMethod(readBoolean());
+                    function.setReturnChecked(readBoolean());
+                    function.setFrameEscapes(readBoolean());
+                    function.setCaptures(readCaptures());
+                    body.addAll(readStmtList());
+                    stmt = function;
+                } break;
+                case STRUCT: {
+                    Token name = readToken();
+                    List<Stmt.Function> functions = readStmtList();
+                    List<Stmt.Struct> structs = readStmtList();
+                    Stmt.Struct struct = new Stmt.Struct(name, functions, structs, readExprList(), readExprList(),
+                            readExprList(), readExpr());
+                    struct.setImmutable(readBoolean());
+                    stmt = struct;
+                } break;
+                case NAMESPACE: {
+                    Token name = readToken();
+                    List<Stmt> body = readStmtList();
+                    List<Stmt.Function> functions = readSubset(body);
+                    List<Stmt.Struct> structs = readSubset(body);
+                    List<Stmt.Namespace> namespaces = readSubset(body);
+                    Stmt.Namespace namespace = new Stmt.Namespace(name, functions, structs, namespaces, body);
+                    this.namespaces.add(namespace);
+                    stmt = namespace;
+                } break;
+                case ENUM: stmt = new Stmt.Enum(readToken(), readTokens()); break;
+                case FOR: {
+                    Stmt.For loop = new Stmt.For(readExpr(), readExpr(), readExpr(), readStmt());
+                    loop.setSlots(readTokens());
+                    stmt = loop;
+                } break;
+                case BLOCK: {
+                    boolean escapes = readBoolean();
+                    Stmt.Block block = new Stmt.Block(readStmtList());
+                    block.setEscapes(escapes);
+                    stmt = block;
+                } break;
+                case EXPRESSION: stmt = new Stmt.Expression(readExpr()); break;
+                case IF: stmt = new Stmt.If(readExpr(), readStmt(), readStmt()); break;
+                case ERROR: stmt = new Stmt.Error(readToken(), readToken(), readToken()); break;
+                case WHILE: {
+                    Stmt.While loop = new Stmt.While(readExpr(), readStmt());
+                    loop.setSlots(readTokens());
+                    stmt = loop;
+                } break;
+                case INCLUDE: stmt = new Stmt.Include(readToken(), readExpr()); break;
+                default: throw new IOException("Unknown statement tag " + tag + ".");
+            }
+            return (S)stmt;
+        }
+
+        private <S extends Stmt> List<S> readStmtList() throws IOException {
+            int size = readInt();
+            List<S> stmts = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                stmts.add(readStmt());
+            }
+            return stmts;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <S extends Stmt> List<S> readSubset(List<Stmt> body) throws IOException {
+            int size = readInt();
+            List<S> stmts = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                stmts.add((S)body.get(readInt()));
+            }
+            return stmts;
+        }
+    }
+}
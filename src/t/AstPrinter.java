@@ -0,0 +1,296 @@
+package t;
+
+import t.types.Char;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AstPrinter implements Stmt.Visitor<Void>, Expr.Visitor<String> {
+    private final StringBuilder sb = new StringBuilder();
+    private int indent = 0;
+
+    public String print(List<Stmt> stmts) {
+        for (Stmt stmt : stmts) {
+            print(stmt);
+        }
+        return sb.toString();
+    }
+
+    private void print(Stmt stmt) {
+        stmt.accept(this);
+    }
+
+    private String print(Expr expr) {
+        if (expr == null) {
+            return "nil";
+        }
+        return expr.accept(this);
+    }
+
+    private void line(String text) {
+        for (int i = 0; i < indent; i++) {
+            sb.append("    ");
+        }
+        sb.append(text).append('\n');
+    }
+
+    private void block(String header, List<? extends Stmt> body) {
+        line("(" + header);
+        indent++;
+        for (Stmt stmt : body) {
+            print(stmt);
+        }
+        indent--;
+        line(")");
+    }
+
+    private String parenthesize(String name, Expr... exprs) {
+        StringBuilder builder = new StringBuilder("(").append(name);
+        for (Expr expr : exprs) {
+            builder.append(' ').append(print(expr));
+        }
+        return builder.append(')').toString();
+    }
+
+    private String params(List<Expr.Param> params) {
+        StringBuilder builder = new StringBuilder("(");
+        for (int i = 0; i < params.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(print(params.get(i)));
+        }
+        return builder.append(')').toString();
+    }
+
+    private void members(List<Expr.Member> members) {
+        if (members != null) {
+            for (Expr.Member member : members) {
+                line(print(member));
+            }
+        }
+    }
+
+    //=================================Expr====================================
+
+    @Override
+    public String visitDeclarationExpr(Expr.Declaration expr) {
+        String declaration = "(" + expr.getType().getLexeme() + " " + expr.getName().getLexeme();
+        if (expr.getValue() != null) {
+            declaration += " " + print(expr.getValue());
+        }
+        return declaration + ")";
+    }
+
+    @Override
+    public String visitVarExpr(Expr.Var expr) {
+        return expr.getName().getLexeme();
+    }
+
+    @Override
+    public String visitLiteralExpr(Expr.Literal expr) {
+        Object value = expr.getValue();
+        if (value == null) {
+            return "nil";
+        }
+        if (value instanceof Char) {
+            return "'" + value + "'";
+        }
+        return value.toString();
+    }
+
+    @Override
+    public String visitGroupingExpr(Expr.Grouping expr) {
+        return parenthesize("group", expr.getExpr());
+    }
+
+    @Override
+    public String visitAssignExpr(Expr.Assign expr) {
+        return parenthesize("=", expr.getTarget(), expr.getValue());
+    }
+
+    @Override
+    public String visitBinaryExpr(Expr.Binary expr) {
+        return parenthesize(expr.getOperator().getLexeme(), expr.getLeft(), expr.getRight());
+    }
+
+    @Override
+    public String visitUnaryExpr(Expr.Unary expr) {
+        return parenthesize(expr.getOperator().getLexeme(), expr.getExpr());
+    }
+
+    @Override
+    public String visitLogicalExpr(Expr.Logical expr) {
+        return parenthesize(expr.getOperator().getLexeme(), expr.getLeft(), expr.getRight());
+    }
+
+    @Override
+    public String visitCallExpr(Expr.Call expr) {
+        return parenthesize("call " + print(expr.getCallee()), expr.getArgs().toArray(new Expr[0]));
+    }
+
+    @Override
+    public String visitGetExpr(Expr.Get expr) {
+        return print(expr.getExpr()) + "." + expr.getName().getLexeme();
+    }
+
+    @Override
+    public String visitSliceExpr(Expr.Slice expr) {
+        String end = expr.getEnd() == null ? "" : ":" + print(expr.getEnd());
+        return print(expr.getSlicee()) + "[" + print(expr.getSlicing()) + end + "]";
+    }
+
+    @Override
+    public String visitListLiteralExpr(Expr.ListLiteral expr) {
+        return parenthesize("list", expr.getElements().toArray(new Expr[0]));
+    }
+
+    @Override
+    public String visitMapLiteralExpr(Expr.MapLiteral expr) {
+        List<Expr> entries = new ArrayList<>();
+        for (int i = 0; i < expr.getKeys().size(); i++) {
+            entries.add(expr.getKeys().get(i));
+            entries.add(expr.getValues().get(i));
+        }
+        return parenthesize("map", entries.toArray(new Expr[0]));
+    }
+
+    @Override
+    public String visitReturnExpr(Expr.Return expr) {
+        return parenthesize("return", expr.getExpr());
+    }
+
+    @Override
+    public String visitThisExpr(Expr.This expr) {
+        return "this";
+    }
+
+    @Override
+    public String visitSuperExpr(Expr.Super expr) {
+        return "super." + expr.getFunction().getLexeme();
+    }
+
+    @Override
+    public String visitParamExpr(Expr.Param expr) {
+        return expr.getType().getLexeme() + " " + expr.getName().getLexeme();
+    }
+
+    @Override
+    public String visitMemberExpr(Expr.Member expr) {
+        return "(" + expr.getProtection().getLexeme() + " " + expr.getType().getLexeme() + " " +
+                expr.getName().getLexeme() + ")";
+    }
+
+    @Override
+    public String visitInlineExpr(Expr.Inline expr) {
+        StringBuilder builder = new StringBuilder("(inline ").append(expr.getFunction().getName().getLexeme());
+        for (int i = 0; i < expr.getLocals().size(); i++) {
+            builder.append(" (").append(expr.getLocals().get(i).getLexeme()).append(' ')
+                    .append(print(expr.getCall().getArgs().get(i))).append(')');
+        }
+        return builder.append(' ').append(print(expr.getBody())).append(')').toString();
+    }
+
+    @Override
+    public String visitCachedExpr(Expr.Cached expr) {
+        return parenthesize((expr.isFresh() ? "cache " : "cached ") + expr.getSlot().getLexeme(), expr.getExpr());
+    }
+
+    //=================================Stmt====================================
+
+    @Override
+    public Void visitFunctionStmt(Stmt.Function stmt) {
+        block("fn " + stmt.getType().getLexeme() + " " + stmt.getName().getLexeme() + " " +
+                params(stmt.getParams()), stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitStructStmt(Stmt.Struct stmt) {
+        String header = (stmt.isImmutable() ? "immutable struct " : "struct ") + stmt.getName().getLexeme();
+        if (stmt.getSuperstruct() != null) {
+            header += " extends " + stmt.getSuperstruct().getName().getLexeme();
+        }
+        line("(" + header);
+        indent++;
+        members(stmt.getPrivateAttrs());
+        members(stmt.getPublicAttrs());
+        members(stmt.getProtectedAttrs());
+        for (Stmt.Function function : stmt.getFunctions()) {
+            print(function);
+        }
+        indent--;
+        line(")");
+        return null;
+    }
+
+    @Override
+    public Void visitNamespaceStmt(Stmt.Namespace stmt) {
+        block("namespace " + stmt.getName().getLexeme(), stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitEnumStmt(Stmt.Enum stmt) {
+        StringBuilder builder = new StringBuilder("(enum ").append(stmt.getName().getLexeme());
+        for (Token element : stmt.getEnums()) {
+            builder.append(' ').append(element.getLexeme());
+        }
+        line(builder.append(')').toString());
+        return null;
+    }
+
+    @Override
+    public Void visitForStmt(Stmt.For stmt) {
+        block("for " + print(stmt.getInitializer()) + " " + print(stmt.getCondition()) + " " +
+                print(stmt.getIncrement()), stmt.getBody().getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        block("block", stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        line(print(stmt.getExpr()));
+        return null;
+    }
+
+    @Override
+    public Void visitIfStmt(Stmt.If stmt) {
+        line("(if " + print(stmt.getCondition()));
+        indent++;
+        print(stmt.getThenBlock());
+        if (stmt.getElseBlock() != null) {
+            print(stmt.getElseBlock());
+        }
+        indent--;
+        line(")");
+        return null;
+    }
+
+    @Override
+    public Void visitErrorStmt(Stmt.Error stmt) {
+        line("(error " + stmt.getType().getLexeme() + " " + stmt.getMessage().getLexeme() + ")");
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStmt(Stmt.While stmt) {
+        line("(while " + print(stmt.getCondition()));
+        indent++;
+        print(stmt.getBody());
+        indent--;
+        line(")");
+        return null;
+    }
+
+    @Override
+    public Void visitIncludeStmt(Stmt.Include stmt) {
+        line(parenthesize("include", stmt.getExpr()));
+        return null;
+    }
+}
@@ -0,0 +1,285 @@
+package t;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+
+abstract class AstRewriter implements Stmt.Visitor<Stmt>, Expr.Visitor<Expr> {
+    final Interpreter interpreter;
+
+    AstRewriter(Interpreter interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    void rewrite(List<Stmt> stmts) {
+        ListIterator<Stmt> iterator = stmts.listIterator();
+        while (iterator.hasNext()) {
+            Stmt stmt = iterator.next();
+            Stmt rewritten = stmt.accept(this);
+            if (rewritten != stmt) {
+                iterator.set(rewritten);
+            }
+        }
+    }
+
+    Expr rewrite(Expr expr) {
+        return expr == null ? null : expr.accept(this);
+    }
+
+    List<Expr> rewrite(List<Expr> exprs, List<Expr> rewritten) {
+        boolean changed = false;
+        for (Expr expr : exprs) {
+            Expr result = rewrite(expr);
+            changed |= result != expr;
+            rewritten.add(result);
+        }
+        return changed ? rewritten : exprs;
+    }
+
+    //=================================Expr====================================
+
+    @Override
+    public Expr visitDeclarationExpr(Expr.Declaration expr) {
+        Expr value = rewrite(expr.getValue());
+        if (value == expr.getValue()) {
+            return expr;
+        }
+        Expr.Declaration declaration = new Expr.Declaration(expr.getType(), expr.getName(), value);
+        declaration.setTypeChecked(expr.isTypeChecked());
+        declaration.setBoxed(expr.isBoxed());
+        return declaration;
+    }
+
+    @Override
+    public Expr visitVarExpr(Expr.Var expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitLiteralExpr(Expr.Literal expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitGroupingExpr(Expr.Grouping expr) {
+        Expr inner = rewrite(expr.getExpr());
+        return inner == expr.getExpr() ? expr : new Expr.Grouping(inner);
+    }
+
+    @Override
+    public Expr visitAssignExpr(Expr.Assign expr) {
+        Expr value = rewrite(expr.getValue());
+        if (value == expr.getValue()) {
+            return expr;
+        }
+        Expr.Assign assign = new Expr.Assign(expr.getTarget(), value, expr.getOperator());
+        assign.setTypeChecked(expr.isTypeChecked());
+        Integer distance = interpreter.distanceOf(expr);
+        if (distance != null) {
+            interpreter.resolve(assign, distance);
+        }
+        return assign;
+    }
+
+    @Override
+    public Expr visitBinaryExpr(Expr.Binary expr) {
+        Expr left = rewrite(expr.getLeft());
+        Expr right = rewrite(expr.getRight());
+        if (left == expr.getLeft() && right == expr.getRight()) {
+            return expr;
+        }
+        return new Expr.Binary(left, expr.getOperator(), right);
+    }
+
+    @Override
+    public Expr visitUnaryExpr(Expr.Unary expr) {
+        Expr operand = rewrite(expr.getExpr());
+        return operand == expr.getExpr() ? expr : new Expr.Unary(operand, expr.getOperator());
+    }
+
+    @Override
+    public Expr visitLogicalExpr(Expr.Logical expr) {
+        Expr left = rewrite(expr.getLeft());
+        Expr right = rewrite(expr.getRight());
+        if (left == expr.getLeft() && right == expr.getRight()) {
+            return expr;
+        }
+        return new Expr.Logical(left, expr.getOperator(), right);
+    }
+
+    @Override
+    public Expr visitCallExpr(Expr.Call expr) {
+        Expr callee = rewrite(expr.getCallee());
+        List<Expr> args = rewrite(expr.getArgs(), new ArrayList<>());
+        Expr.Call call = expr;
+        if (callee != expr.getCallee() || args != expr.getArgs()) {
+            call = new Expr.Call(callee, args, expr.getMarker());
+            call.setCheckedCallee(expr.getCheckedCallee());
+            call.setTarget(expr.getTarget());
+        }
+        return call;
+    }
+
+    @Override
+    public Expr visitGetExpr(Expr.Get expr) {
+        Expr object = rewrite(expr.getExpr());
+        if (object == expr.getExpr()) {
+            return expr;
+        }
+        Expr.Get get = new Expr.Get(object, expr.getName());
+        get.bind(expr.getNamespace(), expr.getSlot());
+        return get;
+    }
+
+    @Override
+    public Expr visitSliceExpr(Expr.Slice expr) {
+        Expr slicee = rewrite(expr.getSlicee());
+        Expr slicing = rewrite(expr.getSlicing());
+        Expr end = rewrite(expr.getEnd());
+        if (slicee == expr.getSlicee() && slicing == expr.getSlicing() && end == expr.getEnd()) {
+            return expr;
+        }
+        return new Expr.Slice(expr.getToken(), slicee, slicing, end);
+    }
+
+    @Override
+    public Expr visitListLiteralExpr(Expr.ListLiteral expr) {
+        List<Expr> elements = rewrite(expr.getElements(), new ArrayList<>());
+        return elements == expr.getElements() ? expr : new Expr.ListLiteral(expr.getToken(), elements);
+    }
+
+    @Override
+    public Expr visitMapLiteralExpr(Expr.MapLiteral expr) {
+        List<Expr> keys = rewrite(expr.getKeys(), new ArrayList<>());
+        List<Expr> values = rewrite(expr.getValues(), new ArrayList<>());
+        if (keys == expr.getKeys() && values == expr.getValues()) {
+            return expr;
+        }
+        return new Expr.MapLiteral(expr.getToken(), keys, values);
+    }
+
+    @Override
+    public Expr visitReturnExpr(Expr.Return expr) {
+        Expr value = rewrite(expr.getExpr());
+        return value == expr.getExpr() ? expr : new Expr.Return(expr.getToken(), value);
+    }
+
+    @Override
+    public Expr visitThisExpr(Expr.This expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitSuperExpr(Expr.Super expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitParamExpr(Expr.Param expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitMemberExpr(Expr.Member expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitInlineExpr(Expr.Inline expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitCachedExpr(Expr.Cached expr) {
+        return expr;
+    }
+
+    //=================================Stmt====================================
+
+    @Override
+    public Stmt visitFunctionStmt(Stmt.Function stmt) {
+        stmt.whenParsed(this::rewrite);
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitStructStmt(Stmt.Struct stmt) {
+        for (Stmt.Function function : stmt.getFunctions()) {
+            visitFunctionStmt(function);
+        }
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitNamespaceStmt(Stmt.Namespace stmt) {
+        rewrite(stmt.getBody());
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitEnumStmt(Stmt.Enum stmt) {
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitForStmt(Stmt.For stmt) {
+        Expr initializer = rewrite(stmt.getInitializer());
+        Expr condition = rewrite(stmt.getCondition());
+        Expr increment = rewrite(stmt.getIncrement());
+        visitBlockStmt(stmt.getBody());
+        if (initializer == stmt.getInitializer() && condition == stmt.getCondition() &&
+                increment == stmt.getIncrement()) {
+            return stmt;
+        }
+        Stmt.For loop = new Stmt.For(initializer, condition, increment, stmt.getBody());
+        loop.setSlots(stmt.getSlots());
+        return loop;
+    }
+
+    @Override
+    public Stmt visitBlockStmt(Stmt.Block stmt) {
+        rewrite(stmt.getBody());
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitExpressionStmt(Stmt.Expression stmt) {
+        Expr expr = rewrite(stmt.getExpr());
+        return expr == stmt.getExpr() ? stmt : new Stmt.Expression(expr);
+    }
+
+    @Override
+    public Stmt visitIfStmt(Stmt.If stmt) {
+        Expr condition = rewrite(stmt.getCondition());
+        Stmt thenBlock = stmt.getThenBlock().accept(this);
+        Stmt elseBlock = stmt.getElseBlock() == null ? null : stmt.getElseBlock().accept(this);
+        if (condition == stmt.getCondition() && thenBlock == stmt.getThenBlock() &&
+                elseBlock == stmt.getElseBlock()) {
+            return stmt;
+        }
+        return new Stmt.If(condition, thenBlock, elseBlock);
+    }
+
+    @Override
+    public Stmt visitErrorStmt(Stmt.Error stmt) {
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitWhileStmt(Stmt.While stmt) {
+        Expr condition = rewrite(stmt.getCondition());
+        Stmt body = stmt.getBody().accept(this);
+        if (condition == stmt.getCondition() && body == stmt.getBody()) {
+            return stmt;
+        }
+        Stmt.While loop = new Stmt.While(condition, body);
+        loop.setSlots(stmt.getSlots());
+        return loop;
+    }
+
+    @Override
+    public Stmt visitIncludeStmt(Stmt.Include stmt) {
+        Expr expr = rewrite(stmt.getExpr());
+        return expr == stmt.getExpr() ? stmt : new Stmt.Include(stmt.getToken(), expr);
+    }
+}
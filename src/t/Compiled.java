@@ -0,0 +1,7 @@
+package t;
+
+import java.util.List;
+
+public interface Compiled {
+    Object call(Interpreter interpreter, List<Object> args);
+}
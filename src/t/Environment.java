@@ -4,9 +4,17 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class Environment {
-    private final Environment enclosing;
+    private Environment enclosing;
     private final Map<String, Object> values = new HashMap<>();
 
+    private static class Cell {
+        private Object value;
+
+        Cell(Object value) {
+            this.value = value;
+        }
+    }
+
     public Environment() {
         enclosing = null;
     }
@@ -19,10 +27,43 @@ public class Environment {
         return enclosing;
     }
 
+    void reset(Environment enclosing) {
+        this.enclosing = enclosing;
+        values.clear();
+    }
+
     public void define(String name, Object value) {
         values.put(name, value);
     }
 
+    public void defineCell(String name, Object value) {
+        Object current = values.get(name);
+        if (current instanceof Cell) {
+            ((Cell)current).value = value;
+        }
+        else {
+            values.put(name, new Cell(value));
+        }
+    }
+
+    void capture(String name, Environment from, int distance) {
+        values.put(name, from.ancestor(distance).values.get(name));
+    }
+
+    private void set(String name, Object value) {
+        Object current = values.get(name);
+        if (current instanceof Cell) {
+            ((Cell)current).value = value;
+        }
+        else {
+            values.put(name, value);
+        }
+    }
+
+    private static Object unwrap(Object value) {
+        return value instanceof Cell ? ((Cell)value).value : value;
+    }
+
     private Environment ancestor(int n) {
         Environment env = this;
         for (int i = 0; i < n; i++) {
@@ -35,7 +76,7 @@ public class Environment {
 
     public void assign(Token name, Object value) {
         if (values.containsKey(name.getLexeme())) {
-            values.put(name.getLexeme(), value);
+            set(name.getLexeme(), value);
             return;
         }
         if (enclosing != null) {
@@ -47,12 +88,12 @@ public class Environment {
     }
 
     public void assignAt(int distance, Token name, Object value) {
-        ancestor(distance).values.put(name.getLexeme(), value);
+        ancestor(distance).set(name.getLexeme(), value);
     }
 
     public Object get(Token name) {
         if (values.containsKey(name.getLexeme())) {
-            return values.get(name.getLexeme());
+            return unwrap(values.get(name.getLexeme()));
         }
         if (enclosing != null) {
             return enclosing.get(name);
@@ -63,6 +104,6 @@ public class Environment {
     }
 
     public Object getAt(int distance, String name) {
-        return ancestor(distance).values.get(name);
+        return unwrap(ancestor(distance).values.get(name));
     }
 }
\ No newline at end of file
@@ -15,11 +15,15 @@ public abstract class Expr {
         T visitCallExpr(Call expr);
         T visitGetExpr(Get expr);
         T visitSliceExpr(Slice expr);
+        T visitListLiteralExpr(ListLiteral expr);
+        T visitMapLiteralExpr(MapLiteral expr);
         T visitReturnExpr(Return expr);
         T visitThisExpr(This expr);
         T visitSuperExpr(Super expr);
         T visitParamExpr(Param expr);
         T visitMemberExpr(Member expr);
+        T visitInlineExpr(Inline expr);
+        T visitCachedExpr(Cached expr);
     }
 
     abstract <T> T accept(Expr.Visitor<T> visitor);
@@ -28,6 +32,8 @@ public abstract class Expr {
         private final Token type;
         private final Token name;
         private final Expr value;
+        private boolean typeChecked = false;
+        private boolean boxed = false;
 
         public Declaration(Token type, Token name, Expr value) {
             this.type = type;
@@ -47,6 +53,22 @@ public abstract class Expr {
             return value;
         }
 
+        public void setTypeChecked(boolean typeChecked) {
+            this.typeChecked = typeChecked;
+        }
+
+        public boolean isTypeChecked() {
+            return typeChecked;
+        }
+
+        public void setBoxed(boolean boxed) {
+            this.boxed = boxed;
+        }
+
+        public boolean isBoxed() {
+            return boxed;
+        }
+
         <T> T accept(Visitor<T> visitor) {
             return visitor.visitDeclarationExpr(this);
         }
@@ -104,6 +126,7 @@ public abstract class Expr {
         private final Expr target;
         private final Expr value;
         private final Token operator;
+        private boolean typeChecked = false;
 
         public Assign(Expr target, Expr value, Token operator) {
             this.target = target;
@@ -123,6 +146,14 @@ public abstract class Expr {
             return operator;
         }
 
+        public void setTypeChecked(boolean typeChecked) {
+            this.typeChecked = typeChecked;
+        }
+
+        public boolean isTypeChecked() {
+            return typeChecked;
+        }
+
         <T> T accept(Visitor<T> visitor) {
             return visitor.visitAssignExpr(this);
         }
@@ -210,6 +241,8 @@ public abstract class Expr {
         private final Expr callee;
         private final List<Expr> args;
         private final Token marker;
+        private Stmt.Function checkedCallee = null;
+        private Stmt.Function target = null;
 
         public Call(Expr callee, List<Expr> args, Token marker) {
             this.callee = callee;
@@ -229,6 +262,22 @@ public abstract class Expr {
             return marker;
         }
 
+        public void setCheckedCallee(Stmt.Function checkedCallee) {
+            this.checkedCallee = checkedCallee;
+        }
+
+        public Stmt.Function getCheckedCallee() {
+            return checkedCallee;
+        }
+
+        public void setTarget(Stmt.Function target) {
+            this.target = target;
+        }
+
+        public Stmt.Function getTarget() {
+            return target;
+        }
+
         <T> T accept(Visitor<T> visitor) {
             return visitor.visitCallExpr(this);
         }
@@ -237,6 +286,9 @@ public abstract class Expr {
     public static class Get extends Expr {
         private final Expr expr;
         private final Token name;
+        private Stmt.Namespace namespace = null;
+        private int slot = -1;
+        private int method = -1;
 
         public Get(Expr expr, Token name) {
             this.expr = expr;
@@ -251,6 +303,27 @@ public abstract class Expr {
             return name;
         }
 
+        public void bind(Stmt.Namespace namespace, int slot) {
+            this.namespace = namespace;
+            this.slot = slot;
+        }
+
+        public Stmt.Namespace getNamespace() {
+            return namespace;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        public int getMethod() {
+            return method;
+        }
+
+        public void setMethod(int method) {
+            this.method = method;
+        }
+
         <T> T accept(Visitor<T> visitor) {
             return visitor.visitGetExpr(this);
         }
@@ -260,11 +333,13 @@ public abstract class Expr {
         private final Token token;
         private final Expr slicee;
         private final Expr slicing;
+        private final Expr end;
 
-        public Slice(Token token, Expr slicee, Expr slicing) {
+        public Slice(Token token, Expr slicee, Expr slicing, Expr end) {
             this.token = token;
             this.slicee = slicee;
             this.slicing = slicing;
+            this.end = end;
         }
 
         public Token getToken() {
@@ -279,11 +354,65 @@ public abstract class Expr {
             return slicing;
         }
 
+        public Expr getEnd() {
+            return end;
+        }
+
         <T> T accept(Visitor<T> visitor) {
             return visitor.visitSliceExpr(this);
         }
     }
 
+    public static class ListLiteral extends Expr {
+        private final Token token;
+        private final List<Expr> elements;
+
+        public ListLiteral(Token token, List<Expr> elements) {
+            this.token = token;
+            this.elements = elements;
+        }
+
+        public Token getToken() {
+            return token;
+        }
+
+        public List<Expr> getElements() {
+            return elements;
+        }
+
+        <T> T accept(Visitor<T> visitor) {
+            return visitor.visitListLiteralExpr(this);
+        }
+    }
+
+    public static class MapLiteral extends Expr {
+        private final Token token;
+        private final List<Expr> keys;
+        private final List<Expr> values;
+
+        public MapLiteral(Token token, List<Expr> keys, List<Expr> values) {
+            this.token = token;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        public Token getToken() {
+            return token;
+        }
+
+        public List<Expr> getKeys() {
+            return keys;
+        }
+
+        public List<Expr> getValues() {
+            return values;
+        }
+
+        <T> T accept(Visitor<T> visitor) {
+            return visitor.visitMapLiteralExpr(this);
+        }
+    }
+
     public static class Return extends Expr {
         private final Token token;
         private final Expr expr;
@@ -325,6 +454,7 @@ public abstract class Expr {
     public static class Super extends Expr {
         private final Token token;
         private final Token func;
+        private int method = -1;
 
         public Super(Token token, Token func) {
             this.token = token;
@@ -339,6 +469,14 @@ public abstract class Expr {
             return func;
         }
 
+        public int getMethod() {
+            return method;
+        }
+
+        public void setMethod(int method) {
+            this.method = method;
+        }
+
         <T> T accept(Visitor<T> visitor) {
             return visitor.visitSuperExpr(this);
         }
@@ -347,6 +485,7 @@ public abstract class Expr {
     public static class Param extends Expr {
         private final Token type;
         private final Token name;
+        private boolean boxed = false;
 
         public Param(Token type, Token name) {
             this.type = type;
@@ -361,6 +500,14 @@ public abstract class Expr {
             return name;
         }
 
+        public void setBoxed(boolean boxed) {
+            this.boxed = boxed;
+        }
+
+        public boolean isBoxed() {
+            return boxed;
+        }
+
         <T> T accept(Visitor<T> visitor) {
             return visitor.visitParamExpr(this);
         }
@@ -393,4 +540,66 @@ public abstract class Expr {
             return visitor.visitMemberExpr(this);
         }
     }
+
+    public static class Inline extends Expr {
+        private final Call call;
+        private final Stmt.Function function;
+        private final List<Token> locals;
+        private final Expr body;
+
+        public Inline(Call call, Stmt.Function function, List<Token> locals, Expr body) {
+            this.call = call;
+            this.function = function;
+            this.locals = locals;
+            this.body = body;
+        }
+
+        public Call getCall() {
+            return call;
+        }
+
+        public Stmt.Function getFunction() {
+            return function;
+        }
+
+        public List<Token> getLocals() {
+            return locals;
+        }
+
+        public Expr getBody() {
+            return body;
+        }
+
+        <T> T accept(Visitor<T> visitor) {
+            return visitor.visitInlineExpr(this);
+        }
+    }
+
+    public static class Cached extends Expr {
+        private final Token slot;
+        private final Expr expr;
+        private final boolean fresh;
+
+        public Cached(Token slot, Expr expr, boolean fresh) {
+            this.slot = slot;
+            this.expr = expr;
+            this.fresh = fresh;
+        }
+
+        public Token getSlot() {
+            return slot;
+        }
+
+        public Expr getExpr() {
+            return expr;
+        }
+
+        public boolean isFresh() {
+            return fresh;
+        }
+
+        <T> T accept(Visitor<T> visitor) {
+            return visitor.visitCachedExpr(this);
+        }
+    }
 }
@@ -0,0 +1,200 @@
+package t;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static t.TokenType.*;
+
+public class Inliner extends AstRewriter {
+    private final int threshold;
+    private final boolean report;
+    private final Map<Stmt.Function, Expr> bodies = new IdentityHashMap<>();
+
+    Inliner(Interpreter interpreter, int threshold, boolean report) {
+        super(interpreter);
+        this.threshold = threshold;
+        this.report = report;
+    }
+
+    void inlineStmts(List<Stmt> stmts) {
+        collect(stmts);
+        rewrite(stmts);
+    }
+
+    private void collect(List<Stmt> stmts) {
+        for (Stmt stmt : stmts) {
+            if (stmt instanceof Stmt.Function) {
+                Stmt.Function function = (Stmt.Function)stmt;
+                Expr body = inlineBody(function);
+                if (body != null) {
+                    bodies.put(function, body);
+                }
+            }
+            else if (stmt instanceof Stmt.Namespace) {
+                collect(((Stmt.Namespace)stmt).getBody());
+            }
+        }
+    }
+
+    private Expr inlineBody(Stmt.Function function) {
+        if (function.isDeferred() || function.isMethod() || function.getType().getType() == CONS) {
+            return null;
+        }
+        List<Stmt> body = function.getBody();
+        if (body.size() != 1 || !(body.get(0) instanceof Stmt.Expression)) {
+            return null;
+        }
+        Expr expr = ((Stmt.Expression)body.get(0)).getExpr();
+        if (!(expr instanceof Expr.Return) || ((Expr.Return)expr).getExpr() == null) {
+            return null;
+        }
+        Expr value = ((Expr.Return)expr).getExpr();
+        int size = size(function, value);
+        return size < 0 || size > threshold ? null : value;
+    }
+
+    private int size(Stmt.Function function, Expr expr) {
+        if (expr instanceof Expr.Literal) {
+            return 1;
+        }
+        if (expr instanceof Expr.Var) {
+            Expr.Var var = (Expr.Var)expr;
+            String name = var.getName().getLexeme();
+            Integer distance = interpreter.distanceOf(var);
+            if (name.equals(function.getName().getLexeme())) {
+                return -1;
+            }
+            if (distance == null) {
+                return 1;
+            }
+            return distance == 0 && indexOf(function, name) >= 0 ? 1 : -1;
+        }
+        if (expr instanceof Expr.Grouping) {
+            return size(function, ((Expr.Grouping)expr).getExpr());
+        }
+        if (expr instanceof Expr.Binary) {
+            Expr.Binary binary = (Expr.Binary)expr;
+            return add(size(function, binary.getLeft()), size(function, binary.getRight()));
+        }
+        if (expr instanceof Expr.Logical) {
+            Expr.Logical logical = (Expr.Logical)expr;
+            return add(size(function, logical.getLeft()), size(function, logical.getRight()));
+        }
+        if (expr instanceof Expr.Unary) {
+            Expr.Unary unary = (Expr.Unary)expr;
+            TokenType type = unary.getOperator().getType();
+            return type == NOT || type == MINUS ? add(size(function, unary.getExpr()), 0) : -1;
+        }
+        if (expr instanceof Expr.Get) {
+            return add(size(function, ((Expr.Get)expr).getExpr()), 0);
+        }
+        if (expr instanceof Expr.Slice) {
+            Expr.Slice slice = (Expr.Slice)expr;
+            int size = add(size(function, slice.getSlicee()), size(function, slice.getSlicing()));
+            return slice.getEnd() == null ? size : add(size, size(function, slice.getEnd()));
+        }
+        if (expr instanceof Expr.Call) {
+            Expr.Call call = (Expr.Call)expr;
+            int size = add(size(function, call.getCallee()), 0);
+            for (Expr arg : call.getArgs()) {
+                size = add(size, size(function, arg));
+            }
+            return size;
+        }
+        return -1;
+    }
+
+    private static int add(int left, int right) {
+        return left < 0 || right < 0 ? -1 : left + right + 1;
+    }
+
+    private static int indexOf(Stmt.Function function, String name) {
+        List<Expr.Param> params = function.getParams();
+        for (int i = params.size() - 1; i >= 0; i--) {
+            if (params.get(i).getName().getLexeme().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Expr visitCallExpr(Expr.Call expr) {
+        Expr rewritten = super.visitCallExpr(expr);
+        Expr.Call call = (Expr.Call)rewritten;
+        Stmt.Function target = call.getTarget();
+        if (target != null && bodies.containsKey(target) && target.getParams().size() == call.getArgs().size()) {
+            return inline(call, target);
+        }
+        return call;
+    }
+
+    private Expr.Inline inline(Expr.Call call, Stmt.Function function) {
+        List<Token> locals = new ArrayList<>();
+        for (Expr.Param param : function.getParams()) {
+            Token name = param.getName();
+            locals.add(new Token(name.getType(), function.getName().getLexeme() + "." + name.getLexeme(),
+                    null, call.getMarker().getLine()));
+        }
+        Expr body = instantiate(bodies.get(function), function, locals);
+        if (report) {
+            System.err.println("[line " + call.getMarker().getLine() + "]: Inlined call to '" +
+                    function.getName().getLexeme() + "'.");
+        }
+        return new Expr.Inline(call, function, locals, body);
+    }
+
+    private Expr instantiate(Expr expr, Stmt.Function function, List<Token> locals) {
+        if (expr instanceof Expr.Var) {
+            Expr.Var var = (Expr.Var)expr;
+            if (interpreter.distanceOf(var) == null) {
+                return new Expr.Var(var.getName());
+            }
+            Expr.Var local = new Expr.Var(locals.get(indexOf(function, var.getName().getLexeme())));
+            interpreter.resolve(local, 0);
+            return local;
+        }
+        if (expr instanceof Expr.Grouping) {
+            return instantiate(((Expr.Grouping)expr).getExpr(), function, locals);
+        }
+        if (expr instanceof Expr.Binary) {
+            Expr.Binary binary = (Expr.Binary)expr;
+            return new Expr.Binary(instantiate(binary.getLeft(), function, locals), binary.getOperator(),
+                    instantiate(binary.getRight(), function, locals));
+        }
+        if (expr instanceof Expr.Logical) {
+            Expr.Logical logical = (Expr.Logical)expr;
+            return new Expr.Logical(instantiate(logical.getLeft(), function, locals), logical.getOperator(),
+                    instantiate(logical.getRight(), function, locals));
+        }
+        if (expr instanceof Expr.Unary) {
+            Expr.Unary unary = (Expr.Unary)expr;
+            return new Expr.Unary(instantiate(unary.getExpr(), function, locals), unary.getOperator());
+        }
+        if (expr instanceof Expr.Get) {
+            Expr.Get get = (Expr.Get)expr;
+            Expr.Get copy = new Expr.Get(instantiate(get.getExpr(), function, locals), get.getName());
+            copy.bind(get.getNamespace(), get.getSlot());
+            return copy;
+        }
+        if (expr instanceof Expr.Slice) {
+            Expr.Slice slice = (Expr.Slice)expr;
+            return new Expr.Slice(slice.getToken(), instantiate(slice.getSlicee(), function, locals),
+                    instantiate(slice.getSlicing(), function, locals), instantiate(slice.getEnd(), function, locals));
+        }
+        if (expr instanceof Expr.Call) {
+            Expr.Call call = (Expr.Call)expr;
+            List<Expr> args = new ArrayList<>();
+            for (Expr arg : call.getArgs()) {
+                args.add(instantiate(arg, function, locals));
+            }
+            Expr.Call copy = new Expr.Call(instantiate(call.getCallee(), function, locals), args, call.getMarker());
+            copy.setCheckedCallee(call.getCheckedCallee());
+            copy.setTarget(call.getTarget());
+            return copy;
+        }
+        return expr;
+    }
+}
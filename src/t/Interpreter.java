@@ -1,6 +1,10 @@
 package t;
 
+import t.includes.Columnar;
+import t.includes.Flags;
 import t.includes.IO;
+import t.includes.Memory;
+import t.includes.Persistent;
 import t.includes.Time;
 import t.types.*;
 import t.types.Enum;
@@ -11,32 +15,61 @@ import java.util.Map;
 import static t.TokenType.*;
 
 public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
+    private static final Object UNSET = new Object();
     private final Environment globals = new Environment();
     private final Map<String, String> types = new HashMap<>();
+    private final Map<String, Namespace> builtins = new HashMap<>();
     private Environment env = globals;
-    private StructType structStatus = StructType.NONE;
     private final Map<Expr, Integer> locals = new HashMap<>();
-
-    private enum StructType {
-        STRUCT, NONE
-    }
+    private final Deque<Environment> frames = new ArrayDeque<>();
+    private long escapingFrames = 0;
+    private long localFrames = 0;
+    private long allocatedFrames = 0;
 
     public Interpreter() {
         IO io = new IO(env);
-        globals.define("io", new Namespace(
-                new Token(ID, "io"),
-                io.getFunctions(), new ArrayList<>(), new ArrayList<>()));
+        builtins.put("io", builtinNamespace(new Token(ID, "io"), io.getFunctions()));
         Time time = new Time(env);
-        globals.define("time", new Namespace(
-                new Token(ID, "time"),
-                time.getFunctions(), new ArrayList<>(), new ArrayList<>()
-        ));
+        builtins.put("time", builtinNamespace(new Token(ID, "time"), time.getFunctions()));
+        Persistent persistent = new Persistent(env);
+        builtins.put("persistent", builtinNamespace(new Token(ID, "persistent"), persistent.getFunctions()));
+        Flags flags = new Flags(env);
+        builtins.put("flags", builtinNamespace(new Token(ID, "flags"), flags.getFunctions()));
+        Memory memory = new Memory(env);
+        builtins.put("memory", builtinNamespace(new Token(ID, "memory"), memory.getFunctions()));
+        Columnar columnar = new Columnar(env);
+        builtins.put("columnar", builtinNamespace(new Token(ID, "columnar"), columnar.getFunctions()));
+        for (Map.Entry<String, Namespace> builtin : builtins.entrySet()) {
+            globals.define(builtin.getKey(), builtin.getValue());
+        }
+    }
+
+    private static Namespace builtinNamespace(Token name, List<Function> functions) {
+        List<Stmt.Function> declarations = new ArrayList<>();
+        for (Function function : functions) {
+            declarations.add(function.getDeclaration());
+        }
+        Stmt.Namespace declaration = new Stmt.Namespace(name, declarations, new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>(declarations));
+        return new Namespace(name, functions, new ArrayList<>(), new ArrayList<>(), declaration);
     }
 
     public void resolve(Expr expr, int depth) {
         locals.put(expr, depth);
     }
 
+    public Integer distanceOf(Expr expr) {
+        return locals.get(expr);
+    }
+
+    Namespace builtin(String name) {
+        return builtins.get(name);
+    }
+
+    public Object global(Token name) {
+        return globals.get(name);
+    }
+
     private Object lookUpVariable(Token name, Expr expr) {
         Integer distance = locals.get(expr);
         if (distance != null) {
@@ -47,6 +80,34 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         }
     }
 
+    public Environment acquireFrame(Environment enclosing) {
+        localFrames++;
+        Environment frame = frames.poll();
+        if (frame == null) {
+            allocatedFrames++;
+            return new Environment(enclosing);
+        }
+        frame.reset(enclosing);
+        return frame;
+    }
+
+    public void releaseFrame(Environment frame) {
+        frame.reset(null);
+        frames.push(frame);
+    }
+
+    public Environment newFrame(Environment enclosing) {
+        escapingFrames++;
+        return new Environment(enclosing);
+    }
+
+    String frameStats() {
+        long total = escapingFrames + localFrames;
+        double share = total == 0 ? 0 : 100.0 * localFrames / total;
+        return String.format("frames: %d entered, %d non-escaping (%.1f%%), %d allocated for reuse",
+                total, localFrames, share, allocatedFrames);
+    }
+
     public Object evaluate(Expr expr) {
         return expr.accept(this);
     }
@@ -88,7 +149,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
                 "Operands must be reals.");
     }
 
-    private boolean isTruthy(Object o) {
+    public boolean isTruthy(Object o) {
         if (o instanceof Real) {
             return ((Real)o).getValue() != 0;
         }
@@ -127,7 +188,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return o.toString();
     }
 
-    private String typeOf(Object o) {
+    public String typeOf(Object o) {
         if (o instanceof Real) {
             return "real";
         }
@@ -146,6 +207,30 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         if (o instanceof Instance) {
             return ((Instance)o).getStruct().returnType();
         }
+        if (o instanceof Sequence) {
+            return "list";
+        }
+        if (o instanceof Table) {
+            return "map";
+        }
+        if (o instanceof PersistentVector) {
+            return "vector";
+        }
+        if (o instanceof PersistentMap) {
+            return "dict";
+        }
+        if (o instanceof EnumFlags) {
+            return "flags";
+        }
+        if (o instanceof Buffer) {
+            return "buffer";
+        }
+        if (o instanceof Columns) {
+            return "columns";
+        }
+        if (o instanceof Builder) {
+            return "builder";
+        }
         if (o == null) {
             return "void";
         }
@@ -166,12 +251,15 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     public Object visitAssignExpr(Expr.Assign expr) {
         if (expr.getTarget() instanceof Expr.Var) {
             Expr.Var varTarget = (Expr.Var)expr.getTarget();
-            assignToVar(expr.getValue(), varTarget);
+            assignToVar(expr, varTarget);
         }
         else if (expr.getTarget() instanceof Expr.Get) {
             Expr.Get getTarget = (Expr.Get)expr.getTarget();
             assignToGet(expr.getValue(), getTarget);
         }
+        else if (expr.getTarget() instanceof Expr.Slice) {
+            assignToSlice(expr.getValue(), (Expr.Slice)expr.getTarget());
+        }
         else {
             throw new RuntimeError(expr.getOperator(), "TargetError",
                     "Invalid assignment target.");
@@ -179,28 +267,40 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return null;
     }
 
-    private void assignToVar(Expr expr, Expr.Var target) {
-        Object value = evaluate(expr);
+    private void assignToVar(Expr.Assign expr, Expr.Var target) {
+        Object value = evaluate(expr.getValue());
+        if (expr.isTypeChecked()) {
+            assignVariable(expr, target, value);
+            return;
+        }
         String type = typeOf(value);
         if (types.get(target.getName().getLexeme()).equals("free") ||
                 type.equals(types.get(target.getName().getLexeme()))) {
-            env.assign(target.getName(), value);
+            assignVariable(expr, target, value);
         }
         else {
             throw typeError(target.getName(), types.get(target.getName().getLexeme()), type);
         }
     }
 
+    private void assignVariable(Expr.Assign expr, Expr.Var target, Object value) {
+        Integer distance = locals.get(expr);
+        if (distance == null) {
+            distance = locals.get(target);
+        }
+        if (distance != null) {
+            env.assignAt(distance, target.getName(), value);
+        }
+        else {
+            globals.assign(target.getName(), value);
+        }
+    }
+
     public void assignToGet(Expr expr, Expr.Get target) {
         Object value = evaluate(expr);
         Object object = evaluate(target.getExpr());
         if (object instanceof Instance) {
             Instance instance = (Instance)object;
-            if (structStatus == StructType.NONE &&
-                    instance.getStruct().getProtectionFor(target.getName().getLexeme()) != AttrEnum.PUBLIC) {
-                throw new RuntimeError(target.getName(), "AccessError",
-                        "Cannot assign to private or protected attribute.");
-            }
             if (instance.getStruct().getAttrs().containsKey(target.getName().getLexeme())) {
                 if (instance.getStruct().getAttrs().get(target.getName().getLexeme()).equals(typeOf(value))) {
                     instance.set(target.getName(), value);
@@ -220,6 +320,25 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         }
     }
 
+    private void assignToSlice(Expr expr, Expr.Slice target) {
+        Object value = evaluate(expr);
+        Object slicee = evaluate(target.getSlicee());
+        if (slicee instanceof Sequence) {
+            Sequence sequence = (Sequence)slicee;
+            sequence.set(sequence.index(target.getToken(), evaluate(target.getSlicing()), sequence.size()), value);
+        }
+        else if (slicee instanceof Table) {
+            ((Table)slicee).put(target.getToken(), evaluate(target.getSlicing()), value);
+        }
+        else if (slicee instanceof Buffer) {
+            Buffer buffer = (Buffer)slicee;
+            buffer.set(target.getToken(), buffer.index(target.getToken(), evaluate(target.getSlicing()), buffer.size()), value);
+        }
+        else {
+            throw new RuntimeError(target.getToken(), "TargetError", "Can only assign to list, map, and buffer elements.");
+        }
+    }
+
     @Override
     public Object visitLiteralExpr(Expr.Literal expr) {
         return expr.getValue();
@@ -234,90 +353,87 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     public Object visitUnaryExpr(Expr.Unary expr) {
         Object value = evaluate(expr.getExpr());
         switch (expr.getOperator().getType()) {
-            case NOT: return !isTruthy(value);
-            case MINUS: {
-                if (value instanceof Real) {
-                    Real real = (Real)value;
-                    return new Real(-real.getValue());
-                }
-                else {
-                    throw new RuntimeError(expr.getOperator(), "OperatorError",
-                            "Can only negate reals.");
-                }
-            }
-            case INCR: {
-                if (value instanceof Real) {
-                    double oldValue = ((Real) value).getValue();
-                    double newValue = oldValue + 1;
-                    Expr.Literal lit = new Expr.Literal(new Real(newValue));
-                    Token assign = new Token(TokenType.ASSIGN, "=", null, expr.getOperator().getLine());
-                    Expr.Assign exprAssign = new Expr.Assign(expr.getExpr(), lit, assign);
-                    return visitAssignExpr(exprAssign);
-                } else {
-                    throw new RuntimeError(expr.getOperator(), "OperatorError",
-                            "Can only increment reals.");
-                }
-            }
+            case NOT: return new Bool(!isTruthy(value));
+            case MINUS: return negate(expr.getOperator(), value);
+            case INCR:
             case DECR: {
-                if (value instanceof Real) {
-                    double oldValue = ((Real) value).getValue();
-                    double newValue = oldValue - 1;
-                    Expr.Literal lit = new Expr.Literal(new Real(newValue));
-                    Token assign = new Token(TokenType.ASSIGN, "=", null, expr.getOperator().getLine());
-                    Expr.Assign exprAssign = new Expr.Assign(expr.getExpr(), lit, assign);
-                    return visitAssignExpr(exprAssign);
-                } else {
-                    throw new RuntimeError(expr.getOperator(), "OperatorError",
-                            "Can only increment reals.");
-                }
+                Expr.Literal lit = new Expr.Literal(step(expr.getOperator(), value));
+                Token assign = new Token(TokenType.ASSIGN, "=", null, expr.getOperator().getLine());
+                Expr.Assign exprAssign = new Expr.Assign(expr.getExpr(), lit, assign);
+                return visitAssignExpr(exprAssign);
             }
         }
         return null;
     }
 
+    public Real negate(Token operator, Object value) {
+        if (value instanceof Real) {
+            Real real = (Real)value;
+            return new Real(-real.getValue());
+        }
+        else {
+            throw new RuntimeError(operator, "OperatorError",
+                    "Can only negate reals.");
+        }
+    }
+
+    public Real step(Token operator, Object value) {
+        if (value instanceof Real) {
+            double oldValue = ((Real) value).getValue();
+            return new Real(operator.getType() == INCR ? oldValue + 1 : oldValue - 1);
+        }
+        else {
+            throw new RuntimeError(operator, "OperatorError",
+                    "Can only increment reals.");
+        }
+    }
+
     @Override
     public Object visitBinaryExpr(Expr.Binary expr) {
         Object left = evaluate(expr.getLeft());
         Object right = evaluate(expr.getRight());
+        return binary(expr.getOperator(), left, right);
+    }
 
-        switch (expr.getOperator().getType()) {
+    public Object binary(Token operator, Object left, Object right) {
+        switch (operator.getType()) {
             case MINUS:
-                checkRealOperands(expr.getOperator(), left, right);
+                checkRealOperands(operator, left, right);
                 return Real.subtract((Real)left, (Real)right);
             case SLASH:
-                checkRealOperands(expr.getOperator(), left, right);
+                checkRealOperands(operator, left, right);
                 return Real.divide((Real)left, (Real)right);
             case STAR:
-                checkRealOperands(expr.getOperator(), left, right);
+                checkRealOperands(operator, left, right);
                 return Real.multiply((Real)left, (Real)right);
             case PLUS:
                 if (left instanceof Real && right instanceof Real) {
                     return Real.add((Real)left, (Real)right);
                 }
                 if (left instanceof Char && right instanceof Char) {
-                    return new Char(((Char)left).getValue() + ((Char)right).getValue());
+                    return Char.concat((Char)left, (Char)right);
                 }
-                throw new RuntimeError(expr.getOperator(), "OperandError",
+                throw new RuntimeError(operator, "OperandError",
                         "Operands must be two reals or two chars.");
             case MOD:
-                checkRealOperands(expr.getOperator(), left, right);
+                checkRealOperands(operator, left, right);
                 return Real.mod((Real)left, (Real)right);
             case LESS:
-                checkRealOperands(expr.getOperator(), left, right);
+                checkRealOperands(operator, left, right);
                 return Real.less((Real)left, (Real)right);
             case LESS_EQ:
-                checkRealOperands(expr.getOperator(), left, right);
+                checkRealOperands(operator, left, right);
                 return Real.lessEq((Real)left, (Real)right);
             case GREATER:
-                checkRealOperands(expr.getOperator(), left, right);
+                checkRealOperands(operator, left, right);
                 return Real.greater((Real)left, (Real)right);
             case GREATER_EQ:
-                checkRealOperands(expr.getOperator(), left, right);
+                checkRealOperands(operator, left, right);
                 return Real.greaterEq((Real)left, (Real)right);
             case NOT_EQ:
-                return !isEqual(left, right);
+                return new Bool(!isEqual(left, right));
             case EQ:
-                return isEqual(left, right);
+                return new Bool(isEqual(left, right));
         }
         return null;
     }
@@ -346,69 +462,175 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     @Override
     public Object visitCallExpr(Expr.Call expr) {
         Object callee = evaluate(expr.getCallee());
-        if (!(callee instanceof Callable)) {
-            throw new RuntimeError(expr.getMarker(), "CallError",
-                    "Can only call functions and structs.");
-        }
-        Callable callable = (Callable)callee;
-        if (expr.getArgs().size() != callable.arity()) {
-            throw new RuntimeError(expr.getMarker(), "ArgsError",
-                    "Expected " + callable.arity() + " arguments, received " + expr.getArgs().size() + ".");
-        }
+        Callable callable = callable(expr.getMarker(), callee, expr.getArgs().size());
         List<Object> args = new ArrayList<>();
         List<Expr.Param> params = callable.getParams();
+        boolean checked = isChecked(expr.getCheckedCallee(), callee);
         for (int i = 0; i < callable.arity(); i++) {
             Object arg = evaluate(expr.getArgs().get(i));
-            Expr.Param param = params.get(i);
-            String argType = typeOf(arg);
-            String paramType = param.getType().getLexeme();
-            if (argType.equals(paramType) || paramType.equals("free")) {
-                args.add(arg);
+            if (!checked) {
+                checkArg(callable, params.get(i), arg);
             }
-            else {
-                throw new RuntimeError(param.getType(), "TypeError",
-                        "Function " + callable.toString() + " expects parameter type " +
-                                paramType + ", received parameter type " + argType);
+            args.add(arg);
+        }
+        return invoke(expr.getMarker(), callable, args);
+    }
+
+    public Callable callable(Token marker, Object callee, int arity) {
+        if (!(callee instanceof Callable)) {
+            throw new RuntimeError(marker, "CallError",
+                    "Can only call functions and structs.");
+        }
+        Callable callable = (Callable)callee;
+        if (arity != callable.arity()) {
+            throw new RuntimeError(marker, "ArgsError",
+                    "Expected " + callable.arity() + " arguments, received " + arity + ".");
+        }
+        return callable;
+    }
+
+    public boolean isChecked(Stmt.Function checkedCallee, Object callee) {
+        return checkedCallee != null && checkedCallee == declarationOf(callee);
+    }
+
+    public Object invoke(Token marker, Callable callable, List<Object> args) {
+        if (callable.isMethod() || callable instanceof Struct) {
+            return callable.call(this, args);
+        }
+        if (callable instanceof Function) {
+            Function func = (Function)callable;
+            Object returnValue = func instanceof Methods.Bound ?
+                    ((Methods.Bound<?>)func).call(this, marker, args) : callable.call(this, args);
+            if (!func.getDeclaration().isReturnChecked()) {
+                checkReturn(func, returnValue);
             }
+            return returnValue;
+        }
+        else {
+            throw new RuntimeError(marker, "Fuck");
         }
-        if (callable.isMethod() || callee instanceof Struct) {
-            structStatus = StructType.STRUCT;
-            Object toReturn = callable.call(this, args);
-            if (!(expr.getCallee() instanceof Expr.Super)) {
-                structStatus = StructType.NONE;
+    }
+
+    public void checkArg(Callable callable, Expr.Param param, Object arg) {
+        String argType = typeOf(arg);
+        String paramType = param.getType().getLexeme();
+        if (!argType.equals(paramType) && !paramType.equals("free")) {
+            throw new RuntimeError(param.getType(), "TypeError",
+                    "Function " + callable.toString() + " expects parameter type " +
+                            paramType + ", received parameter type " + argType);
+        }
+    }
+
+    private void checkReturn(Function func, Object returnValue) {
+        if (!func.returnType().equals(typeOf(returnValue)) && !func.returnType().equals("free")) {
+            Stmt.Function decl = func.getDeclaration();
+            String expected = decl.getType().getLexeme();
+            String received = typeOf(returnValue);
+            throw new RuntimeError(decl.getType(), "TypeError",
+                    "Function " + func.toString() + " expects return type " +
+                            expected + ", received return type " + received);
+        }
+    }
+
+    @Override
+    public Object visitInlineExpr(Expr.Inline expr) {
+        Expr.Call call = expr.getCall();
+        Object callee = evaluate(call.getCallee());
+        if (declarationOf(callee) != expr.getFunction()) {
+            return visitCallExpr(call);
+        }
+        Function func = (Function)callee;
+        List<Expr.Param> params = func.getParams();
+        boolean checked = call.getCheckedCallee() == expr.getFunction();
+        Object[] args = new Object[params.size()];
+        for (int i = 0; i < params.size(); i++) {
+            args[i] = evaluate(call.getArgs().get(i));
+            if (!checked) {
+                checkArg(func, params.get(i), args[i]);
             }
-            return toReturn;
         }
+        Environment previous = env;
+        Environment frame = acquireFrame(env);
+        for (int i = 0; i < args.length; i++) {
+            frame.define(expr.getLocals().get(i).getLexeme(), args[i]);
+        }
+        Object value;
+        try {
+            env = frame;
+            value = evaluate(expr.getBody());
+        }
+        finally {
+            env = previous;
+            releaseFrame(frame);
+        }
+        if (!expr.getFunction().isReturnChecked()) {
+            checkReturn(func, value);
+        }
+        return value;
+    }
+
+    @Override
+    public Object visitCachedExpr(Expr.Cached expr) {
+        String slot = expr.getSlot().getLexeme();
+        if (expr.isFresh()) {
+            Object value = evaluate(expr.getExpr());
+            env.define(slot, value);
+            return value;
+        }
+        Integer distance = locals.get(expr);
+        Object value = env.getAt(distance, slot);
+        if (value == UNSET) {
+            value = evaluate(expr.getExpr());
+            env.assignAt(distance, expr.getSlot(), value);
+        }
+        return value;
+    }
+
+    private Stmt.Function declarationOf(Object callee) {
         if (callee instanceof Function) {
-            Function func = (Function)callee;
-            Object returnValue = callable.call(this, args);
-            if (callable.returnType().equals(typeOf(returnValue)) || callable.returnType().equals("free")) {
-                return returnValue;
-            }
-            else {
-                Stmt.Function decl = func.getDeclaration();
-                String expected = decl.getType().getLexeme();
-                String received = typeOf(returnValue);
-                throw new RuntimeError(decl.getType(), "TypeError",
-                        "Function " + func.toString() + " expects return type " +
-                                expected + ", received return type " + received);
-            }
+            return ((Function)callee).getDeclaration();
         }
-        else {
-            throw new RuntimeError(expr.getMarker(), "Fuck");
+        if (callee instanceof Struct && ((Struct)callee).getConstructor() != null) {
+            return ((Struct)callee).getConstructor().getDeclaration();
         }
+        return null;
     }
 
     @Override
     public Object visitSliceExpr(Expr.Slice expr) {
         Object slicee = evaluate(expr.getSlicee());
+        if (expr.getEnd() != null) {
+            return range(expr, slicee);
+        }
+        if (slicee instanceof Sequence) {
+            Sequence sequence = (Sequence)slicee;
+            return sequence.get(sequence.index(expr.getToken(), evaluate(expr.getSlicing()), sequence.size()));
+        }
+        if (slicee instanceof Table) {
+            return ((Table)slicee).get(expr.getToken(), evaluate(expr.getSlicing()));
+        }
+        if (slicee instanceof Columns) {
+            Columns columns = (Columns)slicee;
+            return columns.get(columns.index(expr.getToken(), evaluate(expr.getSlicing())));
+        }
+        if (slicee instanceof Buffer) {
+            Buffer buffer = (Buffer)slicee;
+            return buffer.get(expr.getToken(), buffer.index(expr.getToken(), evaluate(expr.getSlicing()), buffer.size()));
+        }
+        if (slicee instanceof PersistentVector) {
+            PersistentVector vector = (PersistentVector)slicee;
+            return vector.get(vector.index(expr.getToken(), evaluate(expr.getSlicing())));
+        }
+        if (slicee instanceof PersistentMap) {
+            return ((PersistentMap)slicee).get(expr.getToken(), evaluate(expr.getSlicing()));
+        }
         if (slicee instanceof Char) {
             Char str = (Char)slicee;
             Object slicing = evaluate(expr.getSlicing());
             if (slicing instanceof Real) {
                 int index = (int)Math.round(((Real)slicing).getValue());
-                if (index < str.getValue().length()) {
-                    return new Char(Character.toString(str.getValue().charAt(index)));
+                if (index >= 0 && index < str.length()) {
+                    return Char.of(str.charAt(index));
                 }
                 else {
                     throw new RuntimeError(expr.getToken(), "BoundsError",
@@ -422,8 +644,54 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         }
         else {
             throw new RuntimeError(expr.getToken(), "SliceError",
-                    "Can only slice chars.");
+                    "Can only slice chars, lists, maps, vectors, dicts, buffers, and columns.");
+        }
+    }
+
+    private Object range(Expr.Slice expr, Object slicee) {
+        Object start = evaluate(expr.getSlicing());
+        Object end = evaluate(expr.getEnd());
+        if (!(start instanceof Real) || !(end instanceof Real)) {
+            throw new RuntimeError(expr.getToken(), "SliceError", "Can only slice ranges at real indices.");
+        }
+        int from = (int)Math.round(((Real)start).getValue());
+        int to = (int)Math.round(((Real)end).getValue());
+        int limit;
+        if (slicee instanceof Char) {
+            limit = ((Char)slicee).length();
+        }
+        else if (slicee instanceof Sequence) {
+            limit = ((Sequence)slicee).size();
+        }
+        else {
+            throw new RuntimeError(expr.getToken(), "SliceError", "Can only slice ranges of chars and lists.");
+        }
+        if (from < 0 || from > to || to > limit) {
+            throw new RuntimeError(expr.getToken(), "BoundsError", "Range " + from + ":" + to + " out of bounds.");
+        }
+        if (slicee instanceof Char) {
+            return ((Char)slicee).substring(from, to);
+        }
+        return ((Sequence)slicee).slice(from, to);
+    }
+
+    @Override
+    public Object visitListLiteralExpr(Expr.ListLiteral expr) {
+        List<Object> elements = new ArrayList<>(expr.getElements().size());
+        for (Expr element : expr.getElements()) {
+            elements.add(evaluate(element));
+        }
+        return new Sequence(elements);
+    }
+
+    @Override
+    public Object visitMapLiteralExpr(Expr.MapLiteral expr) {
+        Table table = new Table();
+        for (int i = 0; i < expr.getKeys().size(); i++) {
+            Object key = evaluate(expr.getKeys().get(i));
+            table.put(expr.getToken(), key, evaluate(expr.getValues().get(i)));
         }
+        return table;
     }
 
     @Override
@@ -438,58 +706,129 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         Object value = null;
         if (expr.getValue() != null) {
             value = evaluate(expr.getValue());
-            String type = typeOf(value);
-            if (!type.equals(expr.getType().getLexeme()) && !expr.getType().getLexeme().equals("free")) {
+            String type = expr.isTypeChecked() ? null : typeOf(value);
+            if (type != null && !type.equals(expr.getType().getLexeme()) &&
+                    !expr.getType().getLexeme().equals("free")) {
                 throw typeError(expr.getName(), expr.getType().getLexeme(), type);
             }
         }
-        env.define(expr.getName().getLexeme(), value);
+        if (expr.isBoxed()) {
+            env.defineCell(expr.getName().getLexeme(), value);
+        }
+        else {
+            env.define(expr.getName().getLexeme(), value);
+        }
         types.put(expr.getName().getLexeme(), expr.getType().getLexeme());
         return null;
     }
 
     @Override
     public Object visitGetExpr(Expr.Get expr) {
-        Object object = evaluate(expr.getExpr());
+        return member(expr, evaluate(expr.getExpr()));
+    }
+
+    public Object member(Expr.Get expr, Object object) {
+        if (expr.getSlot() >= 0 && object instanceof Namespace) {
+            Namespace namespace = (Namespace)object;
+            if (namespace.getDeclaration() == expr.getNamespace() && namespace.isIncluded()) {
+                Object member = namespace.getSlot(expr.getSlot(), expr.getName());
+                if (member != null) {
+                    return member;
+                }
+            }
+        }
+        if (object instanceof Instance) {
+            if (expr.getMethod() < 0) {
+                expr.setMethod(Struct.slotOf(expr.getName().getLexeme()));
+            }
+            return ((Instance)object).get(expr.getName(), expr.getMethod());
+        }
+        return member(object, expr.getName());
+    }
+
+    public Object member(Object object, Token name) {
         if (object instanceof Enum) {
             Enum e = (Enum)object;
-            return e.getEnum(expr.getName());
+            return e.getEnum(name);
         }
         if (object instanceof Instance) {
-            Instance instance = (Instance)object;
-            if (structStatus == StructType.STRUCT ||
-                    instance.getStruct().getProtectionFor(expr.getName().getLexeme()) != AttrEnum.PRIVATE) {
-                return instance.get(expr.getName());
+            return ((Instance)object).get(name);
+        }
+        if (object instanceof Sequence) {
+            Function method = ((Sequence)object).method(name);
+            if (method == null) {
+                throw new RuntimeError(name, "AttrError", "List has no method '" + name.getLexeme() + "'.");
             }
-            else {
-                throw new RuntimeError(expr.getName(), "AccessError", "Cannot read private attribute.");
+            return method;
+        }
+        if (object instanceof Table) {
+            Function method = ((Table)object).method(name);
+            if (method == null) {
+                throw new RuntimeError(name, "AttrError", "Map has no method '" + name.getLexeme() + "'.");
             }
+            return method;
+        }
+        if (object instanceof PersistentVector) {
+            Function method = ((PersistentVector)object).method(name);
+            if (method == null) {
+                throw new RuntimeError(name, "AttrError", "Vector has no method '" + name.getLexeme() + "'.");
+            }
+            return method;
+        }
+        if (object instanceof PersistentMap) {
+            Function method = ((PersistentMap)object).method(name);
+            if (method == null) {
+                throw new RuntimeError(name, "AttrError", "Dict has no method '" + name.getLexeme() + "'.");
+            }
+            return method;
+        }
+        if (object instanceof Builder) {
+            Function method = ((Builder)object).method(name);
+            if (method == null) {
+                throw new RuntimeError(name, "AttrError", "Builder has no method '" + name.getLexeme() + "'.");
+            }
+            return method;
+        }
+        if (object instanceof Columns) {
+            Function method = ((Columns)object).method(name);
+            if (method == null) {
+                throw new RuntimeError(name, "AttrError", "Columns has no method '" + name.getLexeme() + "'.");
+            }
+            return method;
+        }
+        if (object instanceof Buffer) {
+            Function method = ((Buffer)object).method(name);
+            if (method == null) {
+                throw new RuntimeError(name, "AttrError", "Buffer has no method '" + name.getLexeme() + "'.");
+            }
+            return method;
+        }
+        if (object instanceof EnumFlags) {
+            Function method = ((EnumFlags)object).method(name);
+            if (method == null) {
+                throw new RuntimeError(name, "AttrError", "Flags has no method '" + name.getLexeme() + "'.");
+            }
+            return method;
         }
         if (object instanceof Namespace) {
             Namespace namespace = (Namespace)object;
             if (!namespace.isIncluded()) {
-                throw new RuntimeError(expr.getName(), "IncludeError",
+                throw new RuntimeError(name, "IncludeError",
                         "Cannot access namespace that has not been included.");
             }
             else {
-                Object member = namespace.getFunction(expr.getName());
+                Object member = namespace.getMember(name);
                 if (member == null) {
-                    member = namespace.getStruct(expr.getName());
-                    if (member == null) {
-                        member = namespace.getNamespace(expr.getName());
-                        if (member == null) {
-                            throw new RuntimeError(expr.getName(), "AttrError",
-                                    "Namespace " + namespace.toString() +
-                                            " has no member function, struct, or namespace '" +
-                                    expr.getName().getLexeme() + "'.");
-                        }
-                    }
+                    throw new RuntimeError(name, "AttrError",
+                            "Namespace " + namespace.toString() +
+                                    " has no member function, struct, or namespace '" +
+                                    name.getLexeme() + "'.");
                 }
                 return member;
             }
         }
         else {
-            throw new RuntimeError(expr.getName(), "AttrError",
+            throw new RuntimeError(name, "AttrError",
                     "Only instances and namespaces have attributes.");
         }
     }
@@ -504,7 +843,10 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         int distance = locals.get(expr);
         Struct superstruct = (Struct)env.getAt(distance, "super");
         Instance thisInstance = (Instance)env.getAt(distance - 1, "this");
-        Function func = superstruct.getFunction(thisInstance, expr.getFunction().getLexeme());
+        if (expr.getMethod() < 0) {
+            expr.setMethod(Struct.slotOf(expr.getFunction().getLexeme()));
+        }
+        Function func = superstruct.getFunction(thisInstance, expr.getMethod());
         if (func == null) {
             throw new RuntimeError(expr.getFunction(), "AttrError",
                     "Superstruct has no attribute '" + expr.getFunction().getLexeme() + "'.");
@@ -527,7 +869,17 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Void visitBlockStmt(Stmt.Block stmt) {
-        executeBlock(stmt.getBody(), new Environment(env));
+        if (stmt.escapes()) {
+            executeBlock(stmt.getBody(), newFrame(env));
+            return null;
+        }
+        Environment frame = acquireFrame(env);
+        try {
+            executeBlock(stmt.getBody(), frame);
+        }
+        finally {
+            releaseFrame(frame);
+        }
         return null;
     }
 
@@ -544,6 +896,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Void visitWhileStmt(Stmt.While stmt) {
+        defineSlots(stmt.getSlots());
         while (isTruthy(evaluate(stmt.getCondition()))) {
             execute(stmt.getBody());
         }
@@ -553,6 +906,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     @Override
     public Void visitForStmt(Stmt.For stmt) {
         execute(new Stmt.Expression(stmt.getInitializer()));
+        defineSlots(stmt.getSlots());
         while (isTruthy(evaluate(stmt.getCondition()))) {
             execute(stmt.getBody());
             execute(new Stmt.Expression(stmt.getIncrement()));
@@ -560,10 +914,24 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return null;
     }
 
+    private void defineSlots(List<Token> slots) {
+        for (Token slot : slots) {
+            env.define(slot.getLexeme(), UNSET);
+        }
+    }
+
     @Override
     public Void visitFunctionStmt(Stmt.Function stmt) {
-        Function function = new Function(stmt, env, false, stmt.isMethod());
-        env.define(stmt.getName().getLexeme(), function);
+        if (stmt.getCaptures() == null) {
+            env.define(stmt.getName().getLexeme(), new Function(stmt, env, false, stmt.isMethod()));
+        }
+        else {
+            Environment closure = new Environment(globals);
+            env.define(stmt.getName().getLexeme(), new Function(stmt, closure, false, stmt.isMethod()));
+            for (Map.Entry<String, Integer> capture : stmt.getCaptures().entrySet()) {
+                closure.capture(capture.getKey(), env, capture.getValue());
+            }
+        }
         types.put(stmt.getName().getLexeme(), stmt.getType().getLexeme());
         return null;
     }
@@ -609,26 +977,22 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             methods.put(method.getName().getLexeme(), fun);
         }
         Map<String, String> attrs = new HashMap<>();
-        Map<String, AttrEnum> protections = new HashMap<>();
         if (stmt.getPrivateAttrs() != null) {
             for (Expr.Member attr : stmt.getPrivateAttrs()) {
                 attrs.put(attr.getName().getLexeme(), attr.getType().getLexeme());
-                protections.put(attr.getName().getLexeme(), AttrEnum.PRIVATE);
             }
         }
         if (stmt.getPublicAttrs() != null) {
             for (Expr.Member attr : stmt.getPublicAttrs()) {
                 attrs.put(attr.getName().getLexeme(), attr.getType().getLexeme());
-                protections.put(attr.getName().getLexeme(), AttrEnum.PUBLIC);
             }
         }
         if (stmt.getProtectedAttrs() != null) {
             for (Expr.Member attr : stmt.getProtectedAttrs()) {
                 attrs.put(attr.getName().getLexeme(), attr.getType().getLexeme());
-                protections.put(attr.getName().getLexeme(), AttrEnum.PROTECTED);
             }
         }
-        Struct struct = new Struct(stmt.getName(), (Struct)superstruct, attrs, protections, methods);
+        Struct struct = new Struct(stmt.getName(), (Struct)superstruct, attrs, methods, stmt.isImmutable());
         if (superstruct != null) {
             env = env.getEnclosing();
         }
@@ -659,7 +1023,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             for (Stmt.Namespace nspace : stmt.getNamespaces()) {
                 namespaces.put(nspace.getName().getLexeme(), (Namespace)env.get(nspace.getName()));
             }
-            namespace = new Namespace(stmt.getName(), functions, structs, namespaces);
+            namespace = new Namespace(stmt.getName(), functions, structs, namespaces, stmt);
         }
         finally {
             env = prev;
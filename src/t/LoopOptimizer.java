@@ -0,0 +1,890 @@
+package t;
+
+import t.types.Function;
+import t.types.Namespace;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static t.TokenType.*;
+
+public class LoopOptimizer extends AstRewriter {
+    private final Map<Stmt.Function, List<Stmt>> bodies = new IdentityHashMap<>();
+    private final Map<Stmt.Function, Effects> summaries = new IdentityHashMap<>();
+    private final Set<String> shared = new HashSet<>();
+    private final Set<String> reassigned = new HashSet<>();
+    private final Set<String> declared = new HashSet<>();
+    private final Set<String> constants = new HashSet<>();
+    private int slots = 0;
+
+    private static class Effects {
+        private final boolean summary;
+        private boolean pure = true;
+        private boolean all = false;
+        private boolean fields = false;
+        private final Set<String> globals = new HashSet<>();
+        private final Set<String> assigned = new HashSet<>();
+        private int depth = 0;
+
+        Effects(boolean summary) {
+            this.summary = summary;
+        }
+
+        private boolean sameAs(Effects other) {
+            return pure == other.pure && all == other.all && globals.equals(other.globals);
+        }
+    }
+
+    LoopOptimizer(Interpreter interpreter) {
+        super(interpreter);
+    }
+
+    void optimizeStmts(List<Stmt> stmts) {
+        Map<String, Integer> definitions = new HashMap<>();
+        for (Stmt stmt : stmts) {
+            if (stmt instanceof Stmt.Function || stmt instanceof Stmt.Struct ||
+                    stmt instanceof Stmt.Namespace || stmt instanceof Stmt.Enum) {
+                definitions.merge(nameOf(stmt), 1, Integer::sum);
+            }
+            else if (stmt instanceof Stmt.Expression && ((Stmt.Expression)stmt).getExpr() instanceof Expr.Declaration) {
+                declared.add(((Expr.Declaration)((Stmt.Expression)stmt).getExpr()).getName().getLexeme());
+            }
+            else if (stmt instanceof Stmt.For &&
+                    ((Stmt.For)stmt).getInitializer() instanceof Expr.Declaration) {
+                declared.add(((Expr.Declaration)((Stmt.For)stmt).getInitializer()).getName().getLexeme());
+            }
+        }
+        for (Map.Entry<String, Integer> definition : definitions.entrySet()) {
+            if (definition.getValue() == 1 && !declared.contains(definition.getKey())) {
+                constants.add(definition.getKey());
+            }
+        }
+        declared.addAll(definitions.keySet());
+        collect(stmts, true);
+        analyze();
+        rewrite(stmts);
+    }
+
+    private static String nameOf(Stmt stmt) {
+        if (stmt instanceof Stmt.Function) {
+            return ((Stmt.Function)stmt).getName().getLexeme();
+        }
+        if (stmt instanceof Stmt.Struct) {
+            return ((Stmt.Struct)stmt).getName().getLexeme();
+        }
+        if (stmt instanceof Stmt.Namespace) {
+            return ((Stmt.Namespace)stmt).getName().getLexeme();
+        }
+        return ((Stmt.Enum)stmt).getName().getLexeme();
+    }
+
+    private boolean isConstant(String name) {
+        if (reassigned.contains(name)) {
+            return false;
+        }
+        return constants.contains(name) || !declared.contains(name) && interpreter.builtin(name) != null;
+    }
+
+    private boolean isConstant(Expr expr) {
+        return expr instanceof Expr.Var && interpreter.distanceOf(expr) == null &&
+                isConstant(((Expr.Var)expr).getName().getLexeme());
+    }
+
+    //================================Collect==================================
+
+    private void collect(List<Stmt> stmts, boolean escapes) {
+        for (Stmt stmt : stmts) {
+            collect(stmt, escapes);
+        }
+    }
+
+    private void collect(Stmt stmt, boolean escapes) {
+        if (stmt instanceof Stmt.Expression) {
+            collect(((Stmt.Expression)stmt).getExpr(), escapes);
+        }
+        else if (stmt instanceof Stmt.Block) {
+            Stmt.Block block = (Stmt.Block)stmt;
+            collect(block.getBody(), block.escapes());
+        }
+        else if (stmt instanceof Stmt.If) {
+            Stmt.If branch = (Stmt.If)stmt;
+            collect(branch.getCondition(), escapes);
+            collect(branch.getThenBlock(), escapes);
+            if (branch.getElseBlock() != null) {
+                collect(branch.getElseBlock(), escapes);
+            }
+        }
+        else if (stmt instanceof Stmt.While) {
+            collect(((Stmt.While)stmt).getCondition(), escapes);
+            collect(((Stmt.While)stmt).getBody(), escapes);
+        }
+        else if (stmt instanceof Stmt.For) {
+            Stmt.For loop = (Stmt.For)stmt;
+            collect(loop.getInitializer(), escapes);
+            collect(loop.getCondition(), escapes);
+            collect(loop.getIncrement(), escapes);
+            collect(loop.getBody(), escapes);
+        }
+        else if (stmt instanceof Stmt.Function) {
+            Stmt.Function function = (Stmt.Function)stmt;
+            if (escapes) {
+                shared.add(function.getName().getLexeme());
+            }
+            if (!function.isDeferred()) {
+                collectFunction(function, function.getBody());
+            }
+        }
+        else if (stmt instanceof Stmt.Struct) {
+            for (Stmt.Function method : ((Stmt.Struct)stmt).getFunctions()) {
+                collect(method, true);
+            }
+        }
+        else if (stmt instanceof Stmt.Namespace) {
+            collect(((Stmt.Namespace)stmt).getBody(), true);
+        }
+        else if (stmt instanceof Stmt.Include) {
+            collect(((Stmt.Include)stmt).getExpr(), escapes);
+        }
+    }
+
+    private void collectFunction(Stmt.Function function, List<Stmt> body) {
+        bodies.put(function, body);
+        summaries.putIfAbsent(function, new Effects(true));
+        if (function.getCaptures() != null) {
+            shared.addAll(function.getCaptures().keySet());
+        }
+        if (function.frameEscapes()) {
+            for (Expr.Param param : function.getParams()) {
+                shared.add(param.getName().getLexeme());
+            }
+        }
+        collect(body, function.frameEscapes());
+    }
+
+    private void collect(Expr expr, boolean escapes) {
+        if (expr instanceof Expr.Declaration) {
+            Expr.Declaration declaration = (Expr.Declaration)expr;
+            if (escapes) {
+                shared.add(declaration.getName().getLexeme());
+            }
+            collect(declaration.getValue(), escapes);
+        }
+        else if (expr instanceof Expr.Assign) {
+            Expr.Assign assign = (Expr.Assign)expr;
+            if (assign.getTarget() instanceof Expr.Var) {
+                reassigned.add(((Expr.Var)assign.getTarget()).getName().getLexeme());
+            }
+            else {
+                collect(assign.getTarget(), escapes);
+            }
+            collect(assign.getValue(), escapes);
+        }
+        else if (expr instanceof Expr.Unary) {
+            Expr.Unary unary = (Expr.Unary)expr;
+            TokenType type = unary.getOperator().getType();
+            if ((type == INCR || type == DECR) && unary.getExpr() instanceof Expr.Var) {
+                reassigned.add(((Expr.Var)unary.getExpr()).getName().getLexeme());
+            }
+            collect(unary.getExpr(), escapes);
+        }
+        else {
+            for (Expr child : children(expr)) {
+                collect(child, escapes);
+            }
+        }
+    }
+
+    private static List<Expr> children(Expr expr) {
+        List<Expr> children = new ArrayList<>();
+        if (expr instanceof Expr.Grouping) {
+            children.add(((Expr.Grouping)expr).getExpr());
+        }
+        else if (expr instanceof Expr.Binary) {
+            children.add(((Expr.Binary)expr).getLeft());
+            children.add(((Expr.Binary)expr).getRight());
+        }
+        else if (expr instanceof Expr.Logical) {
+            children.add(((Expr.Logical)expr).getLeft());
+            children.add(((Expr.Logical)expr).getRight());
+        }
+        else if (expr instanceof Expr.Call) {
+            children.add(((Expr.Call)expr).getCallee());
+            children.addAll(((Expr.Call)expr).getArgs());
+        }
+        else if (expr instanceof Expr.Get) {
+            children.add(((Expr.Get)expr).getExpr());
+        }
+        else if (expr instanceof Expr.Slice) {
+            children.add(((Expr.Slice)expr).getSlicee());
+            children.add(((Expr.Slice)expr).getSlicing());
+            if (((Expr.Slice)expr).getEnd() != null) {
+                children.add(((Expr.Slice)expr).getEnd());
+            }
+        }
+        else if (expr instanceof Expr.ListLiteral) {
+            children.addAll(((Expr.ListLiteral)expr).getElements());
+        }
+        else if (expr instanceof Expr.MapLiteral) {
+            children.addAll(((Expr.MapLiteral)expr).getKeys());
+            children.addAll(((Expr.MapLiteral)expr).getValues());
+        }
+        else if (expr instanceof Expr.Return && ((Expr.Return)expr).getExpr() != null) {
+            children.add(((Expr.Return)expr).getExpr());
+        }
+        else if (expr instanceof Expr.Inline) {
+            children.add(((Expr.Inline)expr).getCall().getCallee());
+            children.addAll(((Expr.Inline)expr).getCall().getArgs());
+        }
+        else if (expr instanceof Expr.Cached) {
+            children.add(((Expr.Cached)expr).getExpr());
+        }
+        return children;
+    }
+
+    //================================Effects==================================
+
+    private void analyze() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Map.Entry<Stmt.Function, Effects> summary : summaries.entrySet()) {
+                Effects effects = summarize(summary.getKey());
+                if (!effects.sameAs(summary.getValue())) {
+                    summary.setValue(effects);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private Effects summarize(Stmt.Function function) {
+        Effects body = new Effects(true);
+        for (Stmt stmt : bodies.get(function)) {
+            scan(stmt, body);
+        }
+        Effects effects = new Effects(true);
+        effects.all = body.all || body.fields;
+        effects.globals.addAll(body.globals);
+        effects.pure = body.pure && !effects.all && body.globals.isEmpty();
+        return effects;
+    }
+
+    private void scan(Stmt stmt, Effects effects) {
+        if (stmt instanceof Stmt.Expression) {
+            scan(((Stmt.Expression)stmt).getExpr(), effects);
+        }
+        else if (stmt instanceof Stmt.Block) {
+            effects.depth++;
+            for (Stmt inner : ((Stmt.Block)stmt).getBody()) {
+                scan(inner, effects);
+            }
+            effects.depth--;
+        }
+        else if (stmt instanceof Stmt.If) {
+            Stmt.If branch = (Stmt.If)stmt;
+            scan(branch.getCondition(), effects);
+            scan(branch.getThenBlock(), effects);
+            if (branch.getElseBlock() != null) {
+                scan(branch.getElseBlock(), effects);
+            }
+        }
+        else if (stmt instanceof Stmt.While) {
+            scan(((Stmt.While)stmt).getCondition(), effects);
+            scan(((Stmt.While)stmt).getBody(), effects);
+        }
+        else if (stmt instanceof Stmt.For) {
+            Stmt.For loop = (Stmt.For)stmt;
+            scan(loop.getInitializer(), effects);
+            scan(loop.getCondition(), effects);
+            scan(loop.getIncrement(), effects);
+            scan(loop.getBody(), effects);
+        }
+        else if (stmt instanceof Stmt.Function || stmt instanceof Stmt.Enum) {
+            effects.assigned.add(nameOf(stmt));
+        }
+        else if (stmt instanceof Stmt.Struct || stmt instanceof Stmt.Namespace || stmt instanceof Stmt.Include) {
+            effects.pure = false;
+            effects.all = true;
+        }
+    }
+
+    private void scan(Expr expr, Effects effects) {
+        if (expr instanceof Expr.Declaration) {
+            scan(((Expr.Declaration)expr).getValue(), effects);
+            effects.assigned.add(((Expr.Declaration)expr).getName().getLexeme());
+        }
+        else if (expr instanceof Expr.Var) {
+            Integer distance = interpreter.distanceOf(expr);
+            if (distance == null ? !isConstant(((Expr.Var)expr).getName().getLexeme()) :
+                    effects.summary && distance > effects.depth) {
+                effects.pure = false;
+            }
+        }
+        else if (expr instanceof Expr.Assign) {
+            Expr.Assign assign = (Expr.Assign)expr;
+            scan(assign.getValue(), effects);
+            write(assign, assign.getTarget(), effects);
+        }
+        else if (expr instanceof Expr.Unary) {
+            Expr.Unary unary = (Expr.Unary)expr;
+            scan(unary.getExpr(), effects);
+            TokenType type = unary.getOperator().getType();
+            if (type == INCR || type == DECR) {
+                write(unary.getExpr(), unary.getExpr(), effects);
+            }
+        }
+        else if (expr instanceof Expr.Get) {
+            Expr.Get get = (Expr.Get)expr;
+            scan(get.getExpr(), effects);
+            if (!isConstant(get.getExpr())) {
+                effects.pure = false;
+            }
+        }
+        else if (expr instanceof Expr.Slice) {
+            scan(((Expr.Slice)expr).getSlicee(), effects);
+            scan(((Expr.Slice)expr).getSlicing(), effects);
+            scan(((Expr.Slice)expr).getEnd(), effects);
+            effects.pure = false;
+        }
+        else if (expr instanceof Expr.Call) {
+            Expr.Call call = (Expr.Call)expr;
+            scan(call.getCallee(), effects);
+            for (Expr arg : call.getArgs()) {
+                scan(arg, effects);
+            }
+            call(call.getCallee(), call.getTarget(), effects);
+        }
+        else if (expr instanceof Expr.Inline) {
+            Expr.Inline inline = (Expr.Inline)expr;
+            scan(inline.getCall().getCallee(), effects);
+            for (Expr arg : inline.getCall().getArgs()) {
+                scan(arg, effects);
+            }
+            call(inline.getCall().getCallee(), inline.getFunction(), effects);
+        }
+        else if (expr instanceof Expr.This || expr instanceof Expr.Super) {
+            effects.pure = false;
+        }
+        else {
+            for (Expr child : children(expr)) {
+                scan(child, effects);
+            }
+        }
+    }
+
+    private void write(Expr expr, Expr target, Effects effects) {
+        if (target instanceof Expr.Var) {
+            String name = ((Expr.Var)target).getName().getLexeme();
+            Integer distance = interpreter.distanceOf(expr);
+            if (distance == null) {
+                distance = interpreter.distanceOf(target);
+            }
+            effects.assigned.add(name);
+            if (distance == null) {
+                effects.globals.add(name);
+            }
+            else if (effects.summary && distance > effects.depth) {
+                effects.all = true;
+            }
+        }
+        else if (target instanceof Expr.Get || target instanceof Expr.Slice) {
+            effects.fields = true;
+        }
+        else {
+            effects.all = true;
+        }
+    }
+
+    private void call(Expr callee, Stmt.Function target, Effects effects) {
+        Effects summary = summaryOf(callee, target);
+        if (summary == null) {
+            effects.pure = false;
+            effects.all = true;
+            return;
+        }
+        effects.pure &= summary.pure;
+        effects.all |= summary.all;
+        effects.globals.addAll(summary.globals);
+    }
+
+    private Effects summaryOf(Expr callee, Stmt.Function target) {
+        Stmt.Function builtin = builtinOf(callee);
+        if (builtin != null) {
+            Effects effects = new Effects(false);
+            effects.pure = builtin.isPure();
+            return effects;
+        }
+        if (target == null || !(callee instanceof Expr.Var || callee instanceof Expr.Get)) {
+            return null;
+        }
+        Expr name = callee instanceof Expr.Get ? ((Expr.Get)callee).getExpr() : callee;
+        if (!(name instanceof Expr.Var) || reassigned.contains(((Expr.Var)name).getName().getLexeme())) {
+            return null;
+        }
+        return summaries.get(target);
+    }
+
+    private Stmt.Function builtinOf(Expr callee) {
+        if (!(callee instanceof Expr.Get) || !isConstant(((Expr.Get)callee).getExpr())) {
+            return null;
+        }
+        Expr.Get get = (Expr.Get)callee;
+        String name = ((Expr.Var)get.getExpr()).getName().getLexeme();
+        if (declared.contains(name)) {
+            return null;
+        }
+        Namespace namespace = interpreter.builtin(name);
+        Function function = namespace == null ? null : namespace.getFunction(get.getName());
+        return function == null || !function.getDeclaration().isBuiltin() ? null : function.getDeclaration();
+    }
+
+    private boolean isPure(Expr callee, Stmt.Function target) {
+        Effects summary = summaryOf(callee, target);
+        return summary != null && summary.pure;
+    }
+
+    //==================================Keys===================================
+
+    private static boolean isCandidate(Expr expr) {
+        if (expr instanceof Expr.Unary) {
+            TokenType type = ((Expr.Unary)expr).getOperator().getType();
+            return type == NOT || type == MINUS;
+        }
+        return expr instanceof Expr.Binary || expr instanceof Expr.Logical || expr instanceof Expr.Get ||
+                expr instanceof Expr.Slice || expr instanceof Expr.Call || expr instanceof Expr.Inline;
+    }
+
+    private static int cost(Expr expr) {
+        if (expr instanceof Expr.Grouping) {
+            return cost(((Expr.Grouping)expr).getExpr());
+        }
+        if (expr instanceof Expr.Var || expr instanceof Expr.Literal || expr instanceof Expr.Cached) {
+            return 0;
+        }
+        int cost = expr instanceof Expr.Call || expr instanceof Expr.Inline ? 2 : 1;
+        for (Expr child : children(expr)) {
+            cost += cost(child);
+        }
+        return cost;
+    }
+
+    private String key(Expr expr, int depth) {
+        if (expr instanceof Expr.Var) {
+            Integer distance = interpreter.distanceOf(expr);
+            return ((Expr.Var)expr).getName().getLexeme() + "@" + (distance == null ? "g" : distance - depth);
+        }
+        if (expr instanceof Expr.Literal) {
+            Object value = ((Expr.Literal)expr).getValue();
+            return value == null ? "nil" : value.getClass().getSimpleName() + ":" + value;
+        }
+        if (expr instanceof Expr.Cached) {
+            return ((Expr.Cached)expr).getSlot().getLexeme() + "@" + (interpreter.distanceOf(expr) - depth);
+        }
+        String name;
+        if (expr instanceof Expr.Binary) {
+            name = ((Expr.Binary)expr).getOperator().getType().name();
+        }
+        else if (expr instanceof Expr.Logical) {
+            name = ((Expr.Logical)expr).getOperator().getType().name();
+        }
+        else if (expr instanceof Expr.Unary) {
+            name = ((Expr.Unary)expr).getOperator().getType().name();
+        }
+        else if (expr instanceof Expr.Get) {
+            name = "." + ((Expr.Get)expr).getName().getLexeme();
+        }
+        else if (expr instanceof Expr.Slice) {
+            name = "[]";
+        }
+        else if (expr instanceof Expr.Call || expr instanceof Expr.Inline) {
+            name = "call";
+        }
+        else if (expr instanceof Expr.Grouping) {
+            return key(((Expr.Grouping)expr).getExpr(), depth);
+        }
+        else {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder("(").append(name);
+        for (Expr child : children(expr)) {
+            String key = key(child, depth);
+            if (key == null) {
+                return null;
+            }
+            builder.append(' ').append(key);
+        }
+        return builder.append(')').toString();
+    }
+
+    private Token slot(int line) {
+        return new Token(ID, "%" + slots++, null, line);
+    }
+
+    private static int lineOf(Expr expr) {
+        if (expr instanceof Expr.Var) {
+            return ((Expr.Var)expr).getName().getLine();
+        }
+        if (expr instanceof Expr.Binary) {
+            return ((Expr.Binary)expr).getOperator().getLine();
+        }
+        if (expr instanceof Expr.Logical) {
+            return ((Expr.Logical)expr).getOperator().getLine();
+        }
+        if (expr instanceof Expr.Unary) {
+            return ((Expr.Unary)expr).getOperator().getLine();
+        }
+        if (expr instanceof Expr.Get) {
+            return ((Expr.Get)expr).getName().getLine();
+        }
+        if (expr instanceof Expr.Call) {
+            return ((Expr.Call)expr).getMarker().getLine();
+        }
+        if (expr instanceof Expr.Inline) {
+            return ((Expr.Inline)expr).getCall().getMarker().getLine();
+        }
+        for (Expr child : children(expr)) {
+            return lineOf(child);
+        }
+        return 0;
+    }
+
+    //================================Rewrite==================================
+
+    @Override
+    void rewrite(List<Stmt> stmts) {
+        super.rewrite(stmts);
+        int start = 0;
+        for (int i = 0; i <= stmts.size(); i++) {
+            if (i == stmts.size() || !(stmts.get(i) instanceof Stmt.Expression)) {
+                if (i > start) {
+                    eliminate(stmts.subList(start, i));
+                }
+                start = i + 1;
+            }
+        }
+    }
+
+    private void eliminate(List<Stmt> run) {
+        Commoner commoner = new Commoner();
+        for (Stmt stmt : run) {
+            commoner.scan(((Stmt.Expression)stmt).getExpr(), false);
+        }
+        if (!commoner.fresh.isEmpty()) {
+            commoner.rewrite(run);
+        }
+    }
+
+    @Override
+    public Stmt visitFunctionStmt(Stmt.Function stmt) {
+        if (stmt.isDeferred()) {
+            stmt.whenParsed(body -> {
+                collectFunction(stmt, body);
+                analyze();
+                rewrite(body);
+            });
+        }
+        else {
+            rewrite(stmt.getBody());
+        }
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitForStmt(Stmt.For stmt) {
+        Effects effects = new Effects(false);
+        scan(stmt.getCondition(), effects);
+        scan(stmt.getIncrement(), effects);
+        scan(stmt.getBody(), effects);
+        Hoister hoister = new Hoister(effects);
+        Expr condition = hoister.rewrite(stmt.getCondition());
+        Expr increment = hoister.rewrite(stmt.getIncrement());
+        hoister.visitBlockStmt(stmt.getBody());
+        Stmt.For loop = stmt;
+        if (condition != stmt.getCondition() || increment != stmt.getIncrement()) {
+            loop = new Stmt.For(stmt.getInitializer(), condition, increment, stmt.getBody());
+        }
+        loop.setSlots(hoister.slots());
+        visitBlockStmt(loop.getBody());
+        return loop;
+    }
+
+    @Override
+    public Stmt visitWhileStmt(Stmt.While stmt) {
+        Effects effects = new Effects(false);
+        scan(stmt.getCondition(), effects);
+        scan(stmt.getBody(), effects);
+        Hoister hoister = new Hoister(effects);
+        Expr condition = hoister.rewrite(stmt.getCondition());
+        Stmt body = stmt.getBody().accept(hoister).accept(this);
+        Stmt.While loop = stmt;
+        if (condition != stmt.getCondition() || body != stmt.getBody()) {
+            loop = new Stmt.While(condition, body);
+        }
+        loop.setSlots(hoister.slots());
+        return loop;
+    }
+
+    private class Commoner extends AstRewriter {
+        private final Map<Expr, Token> fresh = new IdentityHashMap<>();
+        private final Map<Expr, Expr> hits = new IdentityHashMap<>();
+        private final Map<String, Expr> available = new HashMap<>();
+        private final Map<Expr, Set<String>> reads = new IdentityHashMap<>();
+
+        Commoner() {
+            super(LoopOptimizer.this.interpreter);
+        }
+
+        void scan(Expr expr, boolean conditional) {
+            String key = isCandidate(expr) && cost(expr) > 1 && isPure(expr) ? key(expr, 0) : null;
+            if (key != null && available.containsKey(key)) {
+                Expr first = available.get(key);
+                hits.put(expr, first);
+                fresh.computeIfAbsent(first, e -> slot(lineOf(e)));
+                return;
+            }
+            if (expr instanceof Expr.Assign) {
+                Expr.Assign assign = (Expr.Assign)expr;
+                scan(assign.getValue(), conditional);
+                kill(assign.getTarget());
+            }
+            else if (expr instanceof Expr.Declaration) {
+                Expr.Declaration declaration = (Expr.Declaration)expr;
+                if (declaration.getValue() != null) {
+                    scan(declaration.getValue(), conditional);
+                }
+                kill(declaration.getName().getLexeme());
+            }
+            else if (expr instanceof Expr.Unary && ((Expr.Unary)expr).getOperator().getType() != NOT &&
+                    ((Expr.Unary)expr).getOperator().getType() != MINUS) {
+                Expr operand = ((Expr.Unary)expr).getExpr();
+                if (operand instanceof Expr.Get) {
+                    scan(((Expr.Get)operand).getExpr(), conditional);
+                }
+                kill(operand);
+            }
+            else if (expr instanceof Expr.Logical) {
+                scan(((Expr.Logical)expr).getLeft(), conditional);
+                scan(((Expr.Logical)expr).getRight(), true);
+            }
+            else if (expr instanceof Expr.Call) {
+                Expr.Call call = (Expr.Call)expr;
+                for (Expr child : children(call)) {
+                    scan(child, conditional);
+                }
+                kill(summaryOf(call.getCallee(), call.getTarget()));
+            }
+            else if (expr instanceof Expr.Inline || expr instanceof Expr.Cached || expr instanceof Expr.This ||
+                    expr instanceof Expr.Super) {
+                Effects effects = new Effects(false);
+                LoopOptimizer.this.scan(expr, effects);
+                kill(effects.all ? null : effects);
+            }
+            else {
+                for (Expr child : children(expr)) {
+                    scan(child, conditional);
+                }
+            }
+            if (key != null && !conditional) {
+                Set<String> names = new HashSet<>();
+                if (readsFields(expr, names)) {
+                    names.add(".");
+                }
+                available.put(key, expr);
+                reads.put(expr, names);
+            }
+        }
+
+        private boolean isPure(Expr expr) {
+            if (expr instanceof Expr.Var || expr instanceof Expr.Literal) {
+                return true;
+            }
+            if (expr instanceof Expr.Cached) {
+                return !((Expr.Cached)expr).isFresh();
+            }
+            if (expr instanceof Expr.Unary) {
+                TokenType type = ((Expr.Unary)expr).getOperator().getType();
+                return (type == NOT || type == MINUS) && isPure(((Expr.Unary)expr).getExpr());
+            }
+            if (expr instanceof Expr.Call) {
+                if (!LoopOptimizer.this.isPure(((Expr.Call)expr).getCallee(), ((Expr.Call)expr).getTarget())) {
+                    return false;
+                }
+            }
+            else if (!(expr instanceof Expr.Grouping || expr instanceof Expr.Binary ||
+                    expr instanceof Expr.Logical || expr instanceof Expr.Get || expr instanceof Expr.Slice)) {
+                return false;
+            }
+            for (Expr child : children(expr)) {
+                if (!isPure(child)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean readsFields(Expr expr, Set<String> names) {
+            if (expr instanceof Expr.Var) {
+                names.add(((Expr.Var)expr).getName().getLexeme());
+                return false;
+            }
+            boolean fields = expr instanceof Expr.Get && !isConstant(((Expr.Get)expr).getExpr()) ||
+                    expr instanceof Expr.Slice;
+            for (Expr child : children(expr)) {
+                fields |= readsFields(child, names);
+            }
+            return fields;
+        }
+
+        private void kill(String name) {
+            available.values().removeIf(first -> reads.get(first).contains(name));
+        }
+
+        private void kill(Expr target) {
+            if (target instanceof Expr.Var) {
+                kill(((Expr.Var)target).getName().getLexeme());
+            }
+            else if (target instanceof Expr.Get && ((Expr.Get)target).getExpr() instanceof Expr.Var) {
+                kill(".");
+            }
+            else {
+                available.clear();
+            }
+        }
+
+        private void kill(Effects effects) {
+            if (effects == null || effects.all) {
+                available.clear();
+                return;
+            }
+            for (String name : effects.globals) {
+                kill(name);
+            }
+            for (String name : effects.assigned) {
+                kill(name);
+            }
+            if (effects.fields) {
+                kill(".");
+            }
+        }
+
+        @Override
+        Expr rewrite(Expr expr) {
+            Expr first = hits.get(expr);
+            if (first != null) {
+                Expr.Cached reuse = new Expr.Cached(fresh.get(first), expr, false);
+                interpreter.resolve(reuse, 0);
+                return reuse;
+            }
+            Token slot = fresh.get(expr);
+            if (slot != null) {
+                return new Expr.Cached(slot, super.rewrite(expr), true);
+            }
+            return super.rewrite(expr);
+        }
+    }
+
+    private class Hoister extends AstRewriter {
+        private final Effects effects;
+        private final Map<String, Token> cached = new HashMap<>();
+        private int depth = 0;
+
+        Hoister(Effects effects) {
+            super(LoopOptimizer.this.interpreter);
+            this.effects = effects;
+        }
+
+        List<Token> slots() {
+            return new ArrayList<>(cached.values());
+        }
+
+        @Override
+        Expr rewrite(Expr expr) {
+            if (expr != null && isCandidate(expr) && cost(expr) > 0 && isInvariant(expr)) {
+                String key = key(expr, depth);
+                if (key != null) {
+                    Token slot = cached.computeIfAbsent(key, k -> slot(lineOf(expr)));
+                    Expr.Cached hoisted = new Expr.Cached(slot, expr, false);
+                    interpreter.resolve(hoisted, depth);
+                    return hoisted;
+                }
+            }
+            return super.rewrite(expr);
+        }
+
+        private boolean isInvariant(Expr expr) {
+            if (expr instanceof Expr.Literal) {
+                return true;
+            }
+            if (expr instanceof Expr.Var) {
+                String name = ((Expr.Var)expr).getName().getLexeme();
+                Integer distance = interpreter.distanceOf(expr);
+                if (effects.assigned.contains(name)) {
+                    return false;
+                }
+                if (distance == null) {
+                    return isConstant(name) || !effects.all && !effects.globals.contains(name);
+                }
+                return distance >= depth && !(effects.all && shared.contains(name));
+            }
+            if (expr instanceof Expr.Cached) {
+                return !((Expr.Cached)expr).isFresh();
+            }
+            if (expr instanceof Expr.Unary) {
+                TokenType type = ((Expr.Unary)expr).getOperator().getType();
+                return (type == NOT || type == MINUS) && isInvariant(((Expr.Unary)expr).getExpr());
+            }
+            if (expr instanceof Expr.Get) {
+                Expr object = ((Expr.Get)expr).getExpr();
+                return isConstant(object) || !effects.fields && !effects.all && isInvariant(object);
+            }
+            if (expr instanceof Expr.Slice && (effects.fields || effects.all)) {
+                return false;
+            }
+            if (expr instanceof Expr.Call && !isPure(((Expr.Call)expr).getCallee(), ((Expr.Call)expr).getTarget())) {
+                return false;
+            }
+            if (expr instanceof Expr.Inline &&
+                    !isPure(((Expr.Inline)expr).getCall().getCallee(), ((Expr.Inline)expr).getFunction())) {
+                return false;
+            }
+            if (!(expr instanceof Expr.Grouping || expr instanceof Expr.Binary || expr instanceof Expr.Logical ||
+                    expr instanceof Expr.Slice || expr instanceof Expr.Call || expr instanceof Expr.Inline)) {
+                return false;
+            }
+            for (Expr child : children(expr)) {
+                if (!isInvariant(child)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Stmt visitBlockStmt(Stmt.Block stmt) {
+            depth++;
+            rewrite(stmt.getBody());
+            depth--;
+            return stmt;
+        }
+
+        @Override
+        public Stmt visitFunctionStmt(Stmt.Function stmt) {
+            return stmt;
+        }
+
+        @Override
+        public Stmt visitStructStmt(Stmt.Struct stmt) {
+            return stmt;
+        }
+
+        @Override
+        public Stmt visitNamespaceStmt(Stmt.Namespace stmt) {
+            return stmt;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package t;
+
+import t.types.Bool;
+import t.types.Real;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+
+import static t.TokenType.*;
+
+public class Optimizer implements Stmt.Visitor<Stmt>, Expr.Visitor<Expr> {
+    private final Interpreter interpreter;
+
+    Optimizer(Interpreter interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    void optimizeStmts(List<Stmt> stmts) {
+        ListIterator<Stmt> iterator = stmts.listIterator();
+        while (iterator.hasNext()) {
+            Stmt stmt = optimize(iterator.next());
+            if (stmt == null) {
+                iterator.remove();
+            }
+            else {
+                iterator.set(stmt);
+            }
+        }
+    }
+
+    private Stmt optimize(Stmt stmt) {
+        return stmt.accept(this);
+    }
+
+    private Expr optimize(Expr expr) {
+        return expr.accept(this);
+    }
+
+    private List<Expr> optimizeExprs(List<Expr> exprs) {
+        List<Expr> optimized = new ArrayList<>(exprs.size());
+        for (Expr expr : exprs) {
+            optimized.add(optimize(expr));
+        }
+        return optimized;
+    }
+
+    private Expr fold(Expr expr) {
+        try {
+            return new Expr.Literal(interpreter.evaluate(expr));
+        }
+        catch (RuntimeError e) {
+            return expr;
+        }
+    }
+
+    private static boolean isConstant(Expr expr) {
+        return expr instanceof Expr.Literal;
+    }
+
+    private static boolean isConstant(Expr expr, double value) {
+        if (expr instanceof Expr.Literal) {
+            Object literal = ((Expr.Literal)expr).getValue();
+            return literal instanceof Real && ((Real)literal).getValue() == value;
+        }
+        return false;
+    }
+
+    private static boolean isReal(Expr expr) {
+        if (expr instanceof Expr.Literal) {
+            return ((Expr.Literal)expr).getValue() instanceof Real;
+        }
+        if (expr instanceof Expr.Unary) {
+            return ((Expr.Unary)expr).getOperator().getType() == MINUS;
+        }
+        if (expr instanceof Expr.Binary) {
+            Expr.Binary binary = (Expr.Binary)expr;
+            switch (binary.getOperator().getType()) {
+                case MINUS:
+                case SLASH:
+                case STAR:
+                case MOD:
+                    return true;
+                case PLUS:
+                    return isReal(binary.getLeft()) && isReal(binary.getRight());
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBool(Expr expr) {
+        if (expr instanceof Expr.Literal) {
+            return ((Expr.Literal)expr).getValue() instanceof Bool;
+        }
+        if (expr instanceof Expr.Unary) {
+            return ((Expr.Unary)expr).getOperator().getType() == NOT;
+        }
+        if (expr instanceof Expr.Binary) {
+            switch (((Expr.Binary)expr).getOperator().getType()) {
+                case LESS:
+                case LESS_EQ:
+                case GREATER:
+                case GREATER_EQ:
+                case EQ:
+                case NOT_EQ:
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private Stmt.Block optimizeBlock(Stmt.Block block) {
+        optimizeStmts(block.getBody());
+        return block;
+    }
+
+    //=================================Expr====================================
+
+    @Override
+    public Expr visitDeclarationExpr(Expr.Declaration expr) {
+        if (expr.getValue() == null) {
+            return expr;
+        }
+        return new Expr.Declaration(expr.getType(), expr.getName(), optimize(expr.getValue()));
+    }
+
+    @Override
+    public Expr visitVarExpr(Expr.Var expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitLiteralExpr(Expr.Literal expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitGroupingExpr(Expr.Grouping expr) {
+        return optimize(expr.getExpr());
+    }
+
+    @Override
+    public Expr visitAssignExpr(Expr.Assign expr) {
+        return new Expr.Assign(optimize(expr.getTarget()), optimize(expr.getValue()), expr.getOperator());
+    }
+
+    @Override
+    public Expr visitBinaryExpr(Expr.Binary expr) {
+        Expr left = optimize(expr.getLeft());
+        Expr right = optimize(expr.getRight());
+        Expr.Binary binary = new Expr.Binary(left, expr.getOperator(), right);
+        if (isConstant(left) && isConstant(right)) {
+            return fold(binary);
+        }
+        switch (expr.getOperator().getType()) {
+            case STAR: {
+                if (isConstant(right, 1) && isReal(left)) {
+                    return left;
+                }
+                if (isConstant(left, 1) && isReal(right)) {
+                    return right;
+                }
+            } break;
+            case PLUS: {
+                if (isConstant(right, 0) && isReal(left)) {
+                    return left;
+                }
+                if (isConstant(left, 0) && isReal(right)) {
+                    return right;
+                }
+            } break;
+            case MINUS: {
+                if (isConstant(right, 0) && isReal(left)) {
+                    return left;
+                }
+            } break;
+            case SLASH: {
+                if (isConstant(right, 1) && isReal(left)) {
+                    return left;
+                }
+            } break;
+        }
+        return binary;
+    }
+
+    @Override
+    public Expr visitUnaryExpr(Expr.Unary expr) {
+        Expr operand = optimize(expr.getExpr());
+        Expr.Unary unary = new Expr.Unary(operand, expr.getOperator());
+        TokenType type = expr.getOperator().getType();
+        if (type != NOT && type != MINUS) {
+            return unary;
+        }
+        if (isConstant(operand)) {
+            return fold(unary);
+        }
+        if (operand instanceof Expr.Unary) {
+            Expr.Unary inner = (Expr.Unary)operand;
+            if (inner.getOperator().getType() == type && (type == MINUS ? isReal(inner.getExpr()) :
+                    isBool(inner.getExpr()))) {
+                return inner.getExpr();
+            }
+        }
+        return unary;
+    }
+
+    @Override
+    public Expr visitLogicalExpr(Expr.Logical expr) {
+        Expr left = optimize(expr.getLeft());
+        Expr right = optimize(expr.getRight());
+        if (isConstant(left)) {
+            boolean truthy = interpreter.isTruthy(((Expr.Literal)left).getValue());
+            if (expr.getOperator().getType() == OR) {
+                return truthy ? left : right;
+            }
+            else {
+                return truthy ? right : left;
+            }
+        }
+        return new Expr.Logical(left, expr.getOperator(), right);
+    }
+
+    @Override
+    public Expr visitCallExpr(Expr.Call expr) {
+        return new Expr.Call(optimize(expr.getCallee()), optimizeExprs(expr.getArgs()), expr.getMarker());
+    }
+
+    @Override
+    public Expr visitGetExpr(Expr.Get expr) {
+        return new Expr.Get(optimize(expr.getExpr()), expr.getName());
+    }
+
+    @Override
+    public Expr visitSliceExpr(Expr.Slice expr) {
+        Expr end = expr.getEnd() == null ? null : optimize(expr.getEnd());
+        return new Expr.Slice(expr.getToken(), optimize(expr.getSlicee()), optimize(expr.getSlicing()), end);
+    }
+
+    @Override
+    public Expr visitListLiteralExpr(Expr.ListLiteral expr) {
+        return new Expr.ListLiteral(expr.getToken(), optimizeExprs(expr.getElements()));
+    }
+
+    @Override
+    public Expr visitMapLiteralExpr(Expr.MapLiteral expr) {
+        return new Expr.MapLiteral(expr.getToken(), optimizeExprs(expr.getKeys()), optimizeExprs(expr.getValues()));
+    }
+
+    @Override
+    public Expr visitReturnExpr(Expr.Return expr) {
+        return new Expr.Return(expr.getToken(), optimize(expr.getExpr()));
+    }
+
+    @Override
+    public Expr visitThisExpr(Expr.This expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitSuperExpr(Expr.Super expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitParamExpr(Expr.Param expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitMemberExpr(Expr.Member expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitInlineExpr(Expr.Inline expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitCachedExpr(Expr.Cached expr) {
+        return expr;
+    }
+
+    //=================================Stmt====================================
+
+    @Override
+    public Stmt visitFunctionStmt(Stmt.Function stmt) {
+        stmt.whenParsed(this::optimizeStmts);
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitStructStmt(Stmt.Struct stmt) {
+        for (Stmt.Function function : stmt.getFunctions()) {
+            optimize(function);
+        }
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitNamespaceStmt(Stmt.Namespace stmt) {
+        optimizeStmts(stmt.getBody());
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitEnumStmt(Stmt.Enum stmt) {
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitForStmt(Stmt.For stmt) {
+        return new Stmt.For(optimize(stmt.getInitializer()), optimize(stmt.getCondition()),
+                optimize(stmt.getIncrement()), optimizeBlock(stmt.getBody()));
+    }
+
+    @Override
+    public Stmt visitBlockStmt(Stmt.Block stmt) {
+        return optimizeBlock(stmt);
+    }
+
+    @Override
+    public Stmt visitExpressionStmt(Stmt.Expression stmt) {
+        return new Stmt.Expression(optimize(stmt.getExpr()));
+    }
+
+    @Override
+    public Stmt visitIfStmt(Stmt.If stmt) {
+        Expr condition = optimize(stmt.getCondition());
+        Stmt thenBlock = optimize(stmt.getThenBlock());
+        Stmt elseBlock = stmt.getElseBlock() == null ? null : optimize(stmt.getElseBlock());
+        if (isConstant(condition)) {
+            return interpreter.isTruthy(((Expr.Literal)condition).getValue()) ? thenBlock : elseBlock;
+        }
+        return new Stmt.If(condition, thenBlock, elseBlock);
+    }
+
+    @Override
+    public Stmt visitErrorStmt(Stmt.Error stmt) {
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitWhileStmt(Stmt.While stmt) {
+        return new Stmt.While(optimize(stmt.getCondition()), optimize(stmt.getBody()));
+    }
+
+    @Override
+    public Stmt visitIncludeStmt(Stmt.Include stmt) {
+        return stmt;
+    }
+}
@@ -0,0 +1,209 @@
+package t;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class ParallelParser {
+    private static final int MIN_CHUNK_LENGTH = 4096;
+
+    private final String text;
+    private final boolean lazy;
+    private final ForkJoinPool pool;
+
+    static class Chunk {
+        private final String text;
+        private final int line;
+        private final List<Runnable> tokenizerErrors = new ArrayList<>();
+        private final List<Runnable> parserErrors = new ArrayList<>();
+
+        Chunk(String text, int line) {
+            this.text = text;
+            this.line = line;
+        }
+
+        String getText() {
+            return text;
+        }
+
+        int getLine() {
+            return line;
+        }
+    }
+
+    private static class ParseTask extends RecursiveTask<List<Stmt>> {
+        private static final long serialVersionUID = 1L;
+        private final List<Chunk> chunks;
+        private final boolean lazy;
+        private final int from;
+        private final int to;
+
+        ParseTask(List<Chunk> chunks, boolean lazy, int from, int to) {
+            this.chunks = chunks;
+            this.lazy = lazy;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Stmt> compute() {
+            if (to - from == 1) {
+                Chunk chunk = chunks.get(from);
+                Tokenizer tokenizer = new Tokenizer(chunk.getText(), chunk.getLine());
+                List<Token> tokens = T.collect(chunk.tokenizerErrors, tokenizer::tokenize);
+                Parser parser = new Parser(tokens, lazy);
+                return T.collect(chunk.parserErrors, parser::parse);
+            }
+            int mid = (from + to) >>> 1;
+            ParseTask left = new ParseTask(chunks, lazy, from, mid);
+            ParseTask right = new ParseTask(chunks, lazy, mid, to);
+            left.fork();
+            List<Stmt> stmts = new ArrayList<>(right.compute());
+            stmts.addAll(0, left.join());
+            return stmts;
+        }
+    }
+
+    ParallelParser(String text, boolean lazy) {
+        this(text, lazy, ForkJoinPool.commonPool());
+    }
+
+    ParallelParser(String text, boolean lazy, ForkJoinPool pool) {
+        this.text = text;
+        this.lazy = lazy;
+        this.pool = pool;
+    }
+
+    public List<Stmt> parse() {
+        int target = Math.max(MIN_CHUNK_LENGTH, text.length() / (pool.getParallelism() * 4));
+        List<Chunk> chunks = split(text, target);
+        if (chunks.size() == 1) {
+            return new Parser(new Tokenizer(text).tokenize(), lazy).parse();
+        }
+        List<Stmt> stmts = pool.invoke(new ParseTask(chunks, lazy, 0, chunks.size()));
+        for (Chunk chunk : chunks) {
+            chunk.tokenizerErrors.forEach(Runnable::run);
+        }
+        for (Chunk chunk : chunks) {
+            chunk.parserErrors.forEach(Runnable::run);
+        }
+        return stmts;
+    }
+
+    //=========================================================================
+
+    static List<Chunk> split(String text, int target) {
+        List<Chunk> chunks = new ArrayList<>();
+        int start = 0;
+        int startLine = 1;
+        int line = 1;
+        int curly = 0;
+        int paren = 0;
+        Deque<Boolean> braces = new ArrayDeque<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i++);
+            switch (c) {
+                case '\n': line++; break;
+                case '#': {
+                    while (i < text.length() && text.charAt(i) != '\n') {
+                        i++;
+                    }
+                } break;
+                case '\'': {
+                    while (i < text.length() && text.charAt(i) != '\'') {
+                        if (text.charAt(i) == '\n') {
+                            line++;
+                        }
+                        i++;
+                    }
+                    i++;
+                } break;
+                case '"': {
+                    while (i < text.length() && text.charAt(i) != '"') {
+                        if (text.charAt(i) == '\\') {
+                            i++;
+                        }
+                        if (i < text.length() && text.charAt(i) == '\n') {
+                            line++;
+                        }
+                        i++;
+                    }
+                    i++;
+                } break;
+                case '{': {
+                    boolean literal = opensLiteral(text, i - 1);
+                    braces.push(literal);
+                    if (literal) {
+                        paren++;
+                    }
+                    else {
+                        curly++;
+                    }
+                } break;
+                case '(':
+                case '[': paren++; break;
+                case ')':
+                case ']': paren--; break;
+                case '}':
+                case ';': {
+                    if (c == '}') {
+                        if (!braces.isEmpty() && braces.pop()) {
+                            paren--;
+                            break;
+                        }
+                        curly--;
+                    }
+                    if (curly == 0 && paren == 0 && i - start >= target && !continuesStatement(text, i)) {
+                        chunks.add(new Chunk(text.substring(start, i), startLine));
+                        start = i;
+                        startLine = line;
+                    }
+                } break;
+            }
+        }
+        if (start < text.length() || chunks.isEmpty()) {
+            chunks.add(new Chunk(text.substring(Math.min(start, text.length())), startLine));
+        }
+        return chunks;
+    }
+
+    private static boolean opensLiteral(String text, int brace) {
+        int i = brace - 1;
+        while (i >= 0 && Character.isWhitespace(text.charAt(i))) {
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        if ("=(,[:+-*/<>!&|".indexOf(text.charAt(i)) >= 0) {
+            return true;
+        }
+        int end = i + 1;
+        while (i >= 0 && Character.isLetterOrDigit(text.charAt(i))) {
+            i--;
+        }
+        return text.substring(i + 1, end).equals("return");
+    }
+
+    private static boolean continuesStatement(String text, int i) {
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '#') {
+                while (i < text.length() && text.charAt(i) != '\n') {
+                    i++;
+                }
+            }
+            else if (Character.isWhitespace(c)) {
+                i++;
+            }
+            else {
+                return text.startsWith("elif", i) || text.startsWith("else", i);
+            }
+        }
+        return false;
+    }
+}
@@ -1,7 +1,10 @@
 package t;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static t.TokenType.*;
 
@@ -15,11 +18,61 @@ public class Parser {
             super(message);
         }
     }
+    private static final int ASSIGNMENT = 1;
+    private static final int OR_PRECEDENCE = 2;
+    private static final int AND_PRECEDENCE = 3;
+    private static final int EQUALITY = 4;
+    private static final int COMPARISON = 5;
+    private static final int ADDITION = 6;
+    private static final int MULTIPLICATION = 7;
+
+    private static final int SLICE = 1;
+    private static final int GET = 2;
+    private static final int CALL = 3;
+    private static final int INCREMENT = 4;
+
+    private static final int[] INFIX = new int[TokenType.values().length];
+    private static final int[] POSTFIX = new int[TokenType.values().length];
+    private static final Set<TokenType> LOGICAL = EnumSet.of(OR, AND);
+    private static final Set<TokenType> FUNCTION_TYPES = EnumSet.of(REAL, CHAR, BOOL, LIST, MAP, VOID, FREE, CONS, ID);
+    private static final Set<TokenType> PARAM_TYPES = EnumSet.of(REAL, CHAR, BOOL, LIST, MAP, FREE, ID);
+    private static final Set<TokenType> PROTECTIONS = EnumSet.of(PRIVATE, PUBLIC, PROTECTED);
+    private static final Set<TokenType> LITERALS = EnumSet.of(BOOLEAN, NIL, NUMBER, STRING);
+
+    static {
+        INFIX[ASSIGN.ordinal()] = ASSIGNMENT;
+        INFIX[OR.ordinal()] = OR_PRECEDENCE;
+        INFIX[AND.ordinal()] = AND_PRECEDENCE;
+        INFIX[NOT_EQ.ordinal()] = EQUALITY;
+        INFIX[EQ.ordinal()] = EQUALITY;
+        INFIX[GREATER.ordinal()] = COMPARISON;
+        INFIX[GREATER_EQ.ordinal()] = COMPARISON;
+        INFIX[LESS.ordinal()] = COMPARISON;
+        INFIX[LESS_EQ.ordinal()] = COMPARISON;
+        INFIX[PLUS.ordinal()] = ADDITION;
+        INFIX[MINUS.ordinal()] = ADDITION;
+        INFIX[SLASH.ordinal()] = MULTIPLICATION;
+        INFIX[STAR.ordinal()] = MULTIPLICATION;
+
+        POSTFIX[LEFT_SQ.ordinal()] = SLICE;
+        POSTFIX[DOT.ordinal()] = GET;
+        POSTFIX[LEFT_PAREN.ordinal()] = CALL;
+        POSTFIX[INCR.ordinal()] = INCREMENT;
+        POSTFIX[DECR.ordinal()] = INCREMENT;
+    }
+
     private List<Token> tokens;
     private int current = 0;
+    private final boolean lazy;
+    private boolean hadError = false;
 
     Parser(List<Token> tokens) {
+        this(tokens, false);
+    }
+
+    Parser(List<Token> tokens, boolean lazy) {
         this.tokens = tokens;
+        this.lazy = lazy;
     }
 
     private boolean isAtEnd() {
@@ -54,22 +107,27 @@ public class Parser {
         }
     }
 
-    private boolean check(TokenType... types) {
-        boolean checked = false;
-        for (TokenType type : types) {
-            if (check(type)) {
-                checked = true;
-            }
+    private boolean check(Set<TokenType> types) {
+        if (isAtEnd()) {
+            return false;
+        }
+        else {
+            return types.contains(peek().getType());
         }
-        return checked;
     }
 
-    private boolean match(TokenType... types) {
-        for (TokenType type : types) {
-            if (check(type)) {
-                advance();
-                return true;
-            }
+    private boolean match(TokenType type) {
+        if (check(type)) {
+            advance();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean match(Set<TokenType> types) {
+        if (check(types)) {
+            advance();
+            return true;
         }
         return false;
     }
@@ -81,16 +139,15 @@ public class Parser {
         throw error(peek(), message);
     }
 
-    private Token consume(String message, TokenType... types) {
-        for (TokenType type : types) {
-            if (check(type)) {
-                return advance();
-            }
+    private Token consume(Set<TokenType> types, String message) {
+        if (check(types)) {
+            return advance();
         }
         throw error(peek(), message);
     }
 
     private ParseError error(Token token, String message) {
+        hadError = true;
         T.error(token, message);
         return new ParseError();
     }
@@ -104,6 +161,7 @@ public class Parser {
             switch (peek().getType()) {
                 case FN:
                 case STRUCT:
+                case IMMUTABLE:
                 case ENUM:
                 case PRIVATE:
                 case PUBLIC:
@@ -114,6 +172,8 @@ public class Parser {
                 case REAL:
                 case CHAR:
                 case BOOL:
+                case LIST:
+                case MAP:
                 case VOID:
                 case FREE:
                 case NAMESPACE:
@@ -137,10 +197,10 @@ public class Parser {
 
     private Stmt declaration() {
         try {
-            if (check(REAL, CHAR, BOOL, VOID, FREE, CONS, ID)) {
+            if (check(FUNCTION_TYPES)) {
                 Token type = peek();
                 if (peekNext().getType() == FN) {
-                    consume("", REAL, CHAR, BOOL, VOID, FREE, CONS, ID);
+                    consume(FUNCTION_TYPES, "");
                     consume(FN, "");
                     return function(type);
                 }
@@ -148,6 +208,12 @@ public class Parser {
             if (match(STRUCT)) {
                 return struct();
             }
+            if (match(IMMUTABLE)) {
+                consume(STRUCT, "Expect 'struct' after 'immutable'.");
+                Stmt.Struct struct = (Stmt.Struct)struct();
+                struct.setImmutable(true);
+                return struct;
+            }
             if (match(NAMESPACE)) {
                 return namespace();
             }
@@ -185,16 +251,60 @@ public class Parser {
         }
         consume(RIGHT_PAREN, "Expect ')' after parameter list declaration.");
         consume(LEFT_CURLY, "Expect '{' before function body.");
+        if (lazy) {
+            int start = current;
+            Set<String> references = skipBody();
+            consume(RIGHT_CURLY, "Expect '}' after function body.");
+            return new Stmt.Function(type, name, params, () -> deferredBody(start, name), references);
+        }
+        List<Stmt> body = functionBody();
+        consume(RIGHT_CURLY, "Expect '}' after function body.");
+        return new Stmt.Function(type, name, params, body);
+    }
+
+    private List<Stmt> functionBody() {
         List<Stmt> body = new ArrayList<>();
         while (!check(RIGHT_CURLY) && !isAtEnd()) {
             body.add(declaration());
         }
-        consume(RIGHT_CURLY, "Expect '}' after function body.");
-        return new Stmt.Function(type, name, params, body);
+        return body;
+    }
+
+    private Set<String> skipBody() {
+        Set<String> references = new HashSet<>();
+        int depth = 0;
+        while (!isAtEnd()) {
+            TokenType type = peek().getType();
+            if (type == RIGHT_CURLY) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            }
+            else if (type == LEFT_CURLY) {
+                depth++;
+            }
+            else if (type == ID) {
+                references.add(peek().getLexeme());
+            }
+            advance();
+        }
+        return references;
+    }
+
+    private List<Stmt> deferredBody(int start, Token name) {
+        Parser parser = new Parser(tokens, true);
+        parser.current = start;
+        List<Stmt> body = parser.functionBody();
+        if (parser.hadError) {
+            throw new RuntimeError(name, "SyntaxError",
+                    "Invalid body in function '" + name.getLexeme() + "'.");
+        }
+        return body;
     }
 
     private Expr.Param paramDeclaration() {
-        Token type = consume("Expect parameter type", REAL, CHAR, BOOL, FREE, ID);
+        Token type = consume(PARAM_TYPES, "Expect parameter type");
         Token name = consume(ID, "Expect parameter name");
         return new Expr.Param(type, name);
     }
@@ -210,7 +320,7 @@ public class Parser {
         List<Expr.Member> publicAttrs = null;
         List<Expr.Member> protectedAttrs = null;
         for (int i = 0; i < 3; i++) {
-            if (match(PRIVATE, PUBLIC, PROTECTED)) {
+            if (match(PROTECTIONS)) {
                 Token protection = previous();
                 consume(LEFT_CURLY, "Expect '{' before attribute block.");
                 List<Expr.Member> attrs = memberList(protection);
@@ -322,7 +432,7 @@ public class Parser {
         consume(RIGHT_PAREN, "Expect ')' after while condition.");
         consume(LEFT_CURLY, "Expect '{' before while body.");
         List<Stmt> body = new ArrayList<>();
-        while (!check(RIGHT_PAREN) && !isAtEnd()) {
+        while (!check(RIGHT_CURLY) && !isAtEnd()) {
             body.add(declaration());
         }
         consume(RIGHT_CURLY, "Expect '}' after while body.");
@@ -417,108 +527,71 @@ public class Parser {
     }
 
     private Expr expression() {
-        return assignment();
+        return expression(ASSIGNMENT);
     }
 
-    private Expr assignment() {
-        Expr expr = or();
-        if (match(ASSIGN)) {
-            Token assign = previous();
-            Expr value = assignment();
-            return new Expr.Assign(expr, value, assign);
-        }
-        return expr;
-    }
-
-    private Expr or() {
-        Expr expr = and();
-        while (match(OR)) {
-            Token operator = previous();
-            Expr right = and();
-            expr = new Expr.Logical(expr, operator, right);
-        }
-        return expr;
-    }
-
-    private Expr and() {
-        Expr expr = equality();
-        while (match(AND)) {
-            Token operator = previous();
-            Expr right = equality();
-            expr = new Expr.Logical(expr, operator, right);
-        }
-        return expr;
-    }
-
-    private Expr equality() {
-        Expr expr = comparison();
-        while (match(NOT_EQ, EQ)) {
-            Token operator = previous();
-            Expr right = comparison();
-            expr = new Expr.Binary(expr, operator, right);
-        }
-        return expr;
-    }
-
-    private Expr comparison() {
-        Expr expr = addition();
-        while (match(GREATER, GREATER_EQ, LESS, LESS_EQ)) {
-            Token operator = previous();
-            Expr right = addition();
-            expr = new Expr.Binary(expr, operator, right);
-        }
-        return expr;
-    }
-
-    private Expr addition() {
-        Expr expr = multiplication();
-        while (match(PLUS, MINUS)) {
-            Token operator = previous();
-            Expr right = multiplication();
-            expr = new Expr.Binary(expr, operator, right);
-        }
-        return expr;
-    }
-
-    private Expr multiplication() {
+    private Expr expression(int minPrecedence) {
         Expr expr = unary();
-        while (match(SLASH, STAR)) {
-            Token operator = previous();
-            Expr right = unary();
-            expr = new Expr.Binary(expr, operator, right);
+        while (true) {
+            TokenType type = peek().getType();
+            int precedence = INFIX[type.ordinal()];
+            if (precedence == 0 || precedence < minPrecedence) {
+                return expr;
+            }
+            Token operator = advance();
+            if (type == ASSIGN) {
+                Expr value = expression(ASSIGNMENT);
+                return new Expr.Assign(expr, value, operator);
+            }
+            Expr right = expression(precedence + 1);
+            if (LOGICAL.contains(type)) {
+                expr = new Expr.Logical(expr, operator, right);
+            }
+            else {
+                expr = new Expr.Binary(expr, operator, right);
+            }
         }
-        return expr;
     }
 
     private Expr unary() {
-        if (match(NOT, MINUS)) {
-            Token operator = previous();
+        TokenType type = peek().getType();
+        if (type == NOT || type == MINUS) {
+            Token operator = advance();
             Expr expr = unary();
             return new Expr.Unary(expr, operator);
         }
-        return increment();
+        return postfix(primary());
     }
 
-    private Expr increment() {
-        Expr expr = call();
-        if (match(INCR, DECR)) {
-            Token operator = previous();
-            return new Expr.Unary(expr, operator);
-        }
-        return expr;
-    }
-
-    private Expr call() {
-        Expr expr = get();
+    private Expr postfix(Expr expr) {
         while (true) {
-            if (match(LEFT_PAREN)) {
-                expr = finishCall(expr);
+            int next = POSTFIX[peek().getType().ordinal()];
+            if (next == 0) {
+                return expr;
             }
-            else {
-                break;
+            Token operator = advance();
+            switch (next) {
+                case SLICE: {
+                    Expr slicing = expression();
+                    Expr end = null;
+                    if (match(COLON)) {
+                        end = expression();
+                    }
+                    consume(RIGHT_SQ, "Expect ']' after slicing.");
+                    expr = new Expr.Slice(operator, expr, slicing, end);
+                } break;
+                case GET: {
+                    Token name = consume(ID, "Expect identifier after '.'.");
+                    expr = new Expr.Get(expr, name);
+                } break;
+                case CALL: {
+                    expr = finishCall(expr);
+                } break;
+                case INCREMENT: {
+                    return new Expr.Unary(expr, operator);
+                }
             }
         }
-        return expr;
     }
 
     private Expr finishCall(Expr expr) {
@@ -535,31 +608,11 @@ public class Parser {
         return new Expr.Call(expr, arguments, paren);
     }
 
-    private Expr get() {
-        Expr expr = slice();
-        while (match(DOT)) {
-            Token name = consume(ID, "Expect identifier after '.'.");
-            expr = new Expr.Get(expr, name);
-        }
-        return expr;
-    }
-
-    private Expr slice() {
-        Expr expr = primary();
-        while (match(LEFT_SQ)) {
-            Token slice = previous();
-            Expr slicing = expression();
-            consume(RIGHT_SQ, "Expect ']' after slicing.");
-            expr = new Expr.Slice(slice, expr, slicing);
-        }
-        return expr;
-    }
-
     private Expr primary() {
-        if (match(BOOLEAN, NIL, NUMBER, STRING)) {
+        if (match(LITERALS)) {
             return new Expr.Literal(previous().getLiteral());
         }
-        if (match(REAL, BOOL, CHAR, FREE, ID)) {
+        if (match(PARAM_TYPES)) {
             Token type = previous();
             if (type.getType() == ID && !check(ID)) {
                 return new Expr.Var(type);
@@ -568,6 +621,31 @@ public class Parser {
                 return varDeclaration(type);
             }
         }
+        if (match(LEFT_SQ)) {
+            Token bracket = previous();
+            List<Expr> elements = new ArrayList<>();
+            if (!check(RIGHT_SQ)) {
+                do {
+                    elements.add(expression());
+                } while (match(COMMA) && !isAtEnd());
+            }
+            consume(RIGHT_SQ, "Expect ']' after list elements.");
+            return new Expr.ListLiteral(bracket, elements);
+        }
+        if (match(LEFT_CURLY)) {
+            Token brace = previous();
+            List<Expr> keys = new ArrayList<>();
+            List<Expr> values = new ArrayList<>();
+            if (!check(RIGHT_CURLY)) {
+                do {
+                    keys.add(expression());
+                    consume(COLON, "Expect ':' after map key.");
+                    values.add(expression());
+                } while (match(COMMA) && !isAtEnd());
+            }
+            consume(RIGHT_CURLY, "Expect '}' after map entries.");
+            return new Expr.MapLiteral(brace, keys, values);
+        }
         if (match(LEFT_PAREN)) {
             Expr expr = expression();
             consume(RIGHT_PAREN, "Expect ')' after expression.");
@@ -0,0 +1,378 @@
+package t;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+
+public class Pruner implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
+    private final Set<String> live = new HashSet<>();
+    private final Map<String, List<Stmt>> pending = new HashMap<>();
+    private final Deque<Stmt> reached = new ArrayDeque<>();
+
+    void pruneStmts(List<Stmt> stmts) {
+        mark(stmts);
+        while (!reached.isEmpty()) {
+            reached.pop().accept(this);
+        }
+        sweep(stmts);
+    }
+
+    private static String declared(Stmt stmt) {
+        if (stmt instanceof Stmt.Function) {
+            return ((Stmt.Function)stmt).getName().getLexeme();
+        }
+        if (stmt instanceof Stmt.Struct) {
+            return ((Stmt.Struct)stmt).getName().getLexeme();
+        }
+        if (stmt instanceof Stmt.Namespace) {
+            for (Stmt member : ((Stmt.Namespace)stmt).getBody()) {
+                if (declared(member) == null) {
+                    return null;
+                }
+            }
+            return ((Stmt.Namespace)stmt).getName().getLexeme();
+        }
+        if (stmt instanceof Stmt.Enum) {
+            return ((Stmt.Enum)stmt).getName().getLexeme();
+        }
+        if (stmt instanceof Stmt.Expression && ((Stmt.Expression)stmt).getExpr() instanceof Expr.Declaration) {
+            Expr.Declaration declaration = (Expr.Declaration)((Stmt.Expression)stmt).getExpr();
+            if (declaration.getValue() == null || declaration.getValue() instanceof Expr.Literal) {
+                return declaration.getName().getLexeme();
+            }
+        }
+        return null;
+    }
+
+    private static boolean terminates(Stmt stmt) {
+        return stmt instanceof Stmt.Error ||
+                stmt instanceof Stmt.Expression && ((Stmt.Expression)stmt).getExpr() instanceof Expr.Return;
+    }
+
+    private void mark(List<Stmt> stmts) {
+        for (Stmt stmt : stmts) {
+            String name = declared(stmt);
+            if (name == null || live.contains(name)) {
+                stmt.accept(this);
+            }
+            else {
+                pending.computeIfAbsent(name, k -> new ArrayList<>()).add(stmt);
+            }
+            if (terminates(stmt)) {
+                return;
+            }
+        }
+    }
+
+    private void reference(String name) {
+        if (live.add(name)) {
+            List<Stmt> stmts = pending.remove(name);
+            if (stmts != null) {
+                reached.addAll(stmts);
+            }
+        }
+    }
+
+    private void reference(Token token) {
+        reference(token.getLexeme());
+    }
+
+    private void mark(Expr expr) {
+        if (expr != null) {
+            expr.accept(this);
+        }
+    }
+
+    private void members(List<Expr.Member> members) {
+        if (members != null) {
+            for (Expr.Member member : members) {
+                mark(member);
+            }
+        }
+    }
+
+    private void sweep(List<? extends Stmt> stmts) {
+        ListIterator<? extends Stmt> iterator = stmts.listIterator();
+        boolean reachable = true;
+        while (iterator.hasNext()) {
+            Stmt stmt = iterator.next();
+            String name = declared(stmt);
+            if (!reachable || name != null && !live.contains(name)) {
+                iterator.remove();
+                continue;
+            }
+            sweep(stmt);
+            reachable = !terminates(stmt);
+        }
+    }
+
+    private void sweep(Stmt stmt) {
+        if (stmt instanceof Stmt.Function) {
+            ((Stmt.Function)stmt).whenParsed(this::sweep);
+        }
+        else if (stmt instanceof Stmt.Struct) {
+            for (Stmt.Function method : ((Stmt.Struct)stmt).getFunctions()) {
+                sweep(method);
+            }
+        }
+        else if (stmt instanceof Stmt.Namespace) {
+            Stmt.Namespace namespace = (Stmt.Namespace)stmt;
+            sweep(namespace.getBody());
+            namespace.getFunctions().retainAll(namespace.getBody());
+            namespace.getStructs().retainAll(namespace.getBody());
+            namespace.getNamespaces().retainAll(namespace.getBody());
+        }
+        else if (stmt instanceof Stmt.Block) {
+            sweep(((Stmt.Block)stmt).getBody());
+        }
+        else if (stmt instanceof Stmt.If) {
+            sweep(((Stmt.If)stmt).getThenBlock());
+            if (((Stmt.If)stmt).getElseBlock() != null) {
+                sweep(((Stmt.If)stmt).getElseBlock());
+            }
+        }
+        else if (stmt instanceof Stmt.For) {
+            sweep(((Stmt.For)stmt).getBody());
+        }
+        else if (stmt instanceof Stmt.While) {
+            sweep(((Stmt.While)stmt).getBody());
+        }
+    }
+
+    //=================================Expr====================================
+
+    @Override
+    public Void visitDeclarationExpr(Expr.Declaration expr) {
+        reference(expr.getType());
+        mark(expr.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visitVarExpr(Expr.Var expr) {
+        reference(expr.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        mark(expr.getExpr());
+        return null;
+    }
+
+    @Override
+    public Void visitAssignExpr(Expr.Assign expr) {
+        mark(expr.getTarget());
+        mark(expr.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        mark(expr.getLeft());
+        mark(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        mark(expr.getExpr());
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        mark(expr.getLeft());
+        mark(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitCallExpr(Expr.Call expr) {
+        mark(expr.getCallee());
+        for (Expr arg : expr.getArgs()) {
+            mark(arg);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitGetExpr(Expr.Get expr) {
+        mark(expr.getExpr());
+        reference(expr.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitSliceExpr(Expr.Slice expr) {
+        mark(expr.getSlicee());
+        mark(expr.getSlicing());
+        mark(expr.getEnd());
+        return null;
+    }
+
+    @Override
+    public Void visitListLiteralExpr(Expr.ListLiteral expr) {
+        for (Expr element : expr.getElements()) {
+            mark(element);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitMapLiteralExpr(Expr.MapLiteral expr) {
+        for (Expr key : expr.getKeys()) {
+            mark(key);
+        }
+        for (Expr value : expr.getValues()) {
+            mark(value);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitReturnExpr(Expr.Return expr) {
+        mark(expr.getExpr());
+        return null;
+    }
+
+    @Override
+    public Void visitThisExpr(Expr.This expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitSuperExpr(Expr.Super expr) {
+        reference(expr.getFunction());
+        return null;
+    }
+
+    @Override
+    public Void visitParamExpr(Expr.Param expr) {
+        reference(expr.getType());
+        return null;
+    }
+
+    @Override
+    public Void visitMemberExpr(Expr.Member expr) {
+        reference(expr.getType());
+        return null;
+    }
+
+    @Override
+    public Void visitInlineExpr(Expr.Inline expr) {
+        mark(expr.getCall());
+        return null;
+    }
+
+    @Override
+    public Void visitCachedExpr(Expr.Cached expr) {
+        mark(expr.getExpr());
+        return null;
+    }
+
+    //=================================Stmt====================================
+
+    @Override
+    public Void visitFunctionStmt(Stmt.Function stmt) {
+        reference(stmt.getType());
+        for (Expr.Param param : stmt.getParams()) {
+            mark(param);
+        }
+        if (stmt.isDeferred()) {
+            for (String name : stmt.getReferences()) {
+                reference(name);
+            }
+        }
+        else {
+            mark(stmt.getBody());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitStructStmt(Stmt.Struct stmt) {
+        mark(stmt.getSuperstruct());
+        members(stmt.getPrivateAttrs());
+        members(stmt.getPublicAttrs());
+        members(stmt.getProtectedAttrs());
+        for (Stmt.Function method : stmt.getFunctions()) {
+            method.accept(this);
+        }
+        for (Stmt.Struct struct : stmt.getStructs()) {
+            struct.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitNamespaceStmt(Stmt.Namespace stmt) {
+        mark(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitEnumStmt(Stmt.Enum stmt) {
+        return null;
+    }
+
+    @Override
+    public Void visitForStmt(Stmt.For stmt) {
+        mark(stmt.getInitializer());
+        mark(stmt.getCondition());
+        mark(stmt.getIncrement());
+        mark(stmt.getBody().getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        mark(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        mark(stmt.getExpr());
+        return null;
+    }
+
+    @Override
+    public Void visitIfStmt(Stmt.If stmt) {
+        mark(stmt.getCondition());
+        stmt.getThenBlock().accept(this);
+        if (stmt.getElseBlock() != null) {
+            stmt.getElseBlock().accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitErrorStmt(Stmt.Error stmt) {
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStmt(Stmt.While stmt) {
+        mark(stmt.getCondition());
+        stmt.getBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitIncludeStmt(Stmt.Include stmt) {
+        mark(stmt.getExpr());
+        return null;
+    }
+}
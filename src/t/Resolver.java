@@ -1,15 +1,24 @@
 package t;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Stack;
+import t.types.Namespace;
 
-public class Resolver implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
+import java.util.*;
+
+public class Resolver implements Stmt.Visitor<Void>, Expr.Visitor<String> {
     private final Interpreter interpreter;
-    private final Stack<Map<String, Boolean>> scopes = new Stack<>();
+    private final Stack<Map<String, Symbol>> scopes = new Stack<>();
+    private final Stack<Set<String>> redeclared = new Stack<>();
+    private final Stack<ScopeInfo> scopeInfo = new Stack<>();
+    private final Stack<Stmt> frames = new Stack<>();
+    private final Map<String, Symbol> globals;
+    private final Set<String> redeclaredGlobals;
+    private final Includes includes;
+    private final Accesses accesses;
     private FunctionType currentFunction = FunctionType.NONE;
     private StructType currentStruct = StructType.NONE;
+    private Stmt.Struct currentStructDeclaration = null;
+    private Stmt.Function currentDeclaration = null;
+    private boolean returnsChecked = true;
 
     private enum FunctionType {
         NONE, FUNCTION, INIT, METHOD
@@ -19,87 +28,478 @@ public class Resolver implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
         NONE, STRUCT, SUBSTRUCT
     }
 
+    private static class Symbol {
+        private final boolean defined;
+        private final String declaredType;
+        private final String valueType;
+        private final Stmt declaration;
+        private final Expr cell;
+        private boolean captured = false;
+        private boolean assigned = false;
+
+        Symbol(boolean defined, String declaredType, String valueType, Stmt declaration) {
+            this(defined, declaredType, valueType, declaration, null);
+        }
+
+        Symbol(boolean defined, String declaredType, String valueType, Stmt declaration, Expr cell) {
+            this.defined = defined;
+            this.declaredType = declaredType;
+            this.valueType = valueType;
+            this.declaration = declaration;
+            this.cell = cell;
+        }
+    }
+
+    private static class ScopeInfo {
+        private final Stmt.Function owner;
+        private final boolean frame;
+        private final Map<String, List<Symbol>> definitions = new HashMap<>();
+        private final Includes includes = new Includes();
+
+        ScopeInfo(Stmt.Function owner, boolean frame) {
+            this.owner = owner;
+            this.frame = frame;
+        }
+    }
+
+    private static class Includes {
+        private final Set<Stmt.Namespace> included = new HashSet<>();
+        private boolean dynamic = false;
+
+        void addAll(Includes other) {
+            included.addAll(other.included);
+            dynamic |= other.dynamic;
+        }
+
+        boolean allows(Stmt.Namespace namespace) {
+            return dynamic || included.contains(namespace);
+        }
+    }
+
+    private static class Accesses {
+        private final Map<String, List<Stmt.Struct>> owners = new HashMap<>();
+        private final Map<Stmt.Struct, Stmt.Struct> superstructs = new HashMap<>();
+        private final List<Access> pending = new ArrayList<>();
+        private boolean resolved = false;
+    }
+
+    private static class Access {
+        private final Token name;
+        private final Stmt.Struct type;
+        private final Stmt.Struct context;
+        private final boolean write;
+
+        Access(Token name, Stmt.Struct type, Stmt.Struct context, boolean write) {
+            this.name = name;
+            this.type = type;
+            this.context = context;
+            this.write = write;
+        }
+    }
+
+    private static final Symbol UNDEFINED = new Symbol(false, null, null, null);
+    private static final Symbol UNKNOWN = new Symbol(true, null, null, null);
+
     Resolver(Interpreter interpreter) {
+        this(interpreter, new HashMap<>(), new HashSet<>(), new Includes(), new Accesses());
+    }
+
+    private Resolver(Interpreter interpreter, Map<String, Symbol> globals, Set<String> redeclaredGlobals,
+                     Includes includes, Accesses accesses) {
         this.interpreter = interpreter;
+        this.globals = globals;
+        this.redeclaredGlobals = redeclaredGlobals;
+        this.includes = includes;
+        this.accesses = accesses;
     }
 
     void resolveStmts(List<Stmt> statements) {
+        boolean top = scopes.isEmpty();
+        if (top) {
+            redeclaredGlobals.addAll(redeclaredIn(statements, Collections.emptyList()));
+        }
         for (Stmt stmt : statements) {
             resolve(stmt);
         }
+        if (top) {
+            for (Access access : accesses.pending) {
+                checkAccess(access);
+            }
+            accesses.pending.clear();
+            accesses.resolved = true;
+        }
     }
 
-    private void resolve(Stmt statement) {
-        statement.accept(this);
+    private Includes currentIncludes() {
+        return scopeInfo.isEmpty() ? includes : scopeInfo.peek().includes;
     }
 
-    private void resolveExprs(List<Expr> exprs) {
-        for (Expr expr : exprs) {
-            resolve(expr);
+    private boolean isIncluded(Stmt.Namespace namespace) {
+        if (includes.allows(namespace)) {
+            return true;
+        }
+        for (ScopeInfo info : scopeInfo) {
+            if (info.includes.allows(namespace)) {
+                return true;
+            }
         }
+        return false;
     }
 
-    private void resolve(Expr expr) {
-        expr.accept(this);
+    private void resolve(Stmt statement) {
+        statement.accept(this);
+    }
+
+    private String resolve(Expr expr) {
+        return expr.accept(this);
     }
 
     private void resolveLocal(Expr expr, Token name) {
         for (int i = scopes.size() - 1; i >= 0; i--) {
             if (scopes.get(i).containsKey(name.getLexeme())) {
-                interpreter.resolve(expr, scopes.size() - 1 - i);
+                interpreter.resolve(expr, scopes.size() - 1 - capture(name.getLexeme(), i));
                 return;
             }
         }
     }
 
+    private int capture(String name, int scope) {
+        Symbol symbol = scopes.get(scope).get(name);
+        int source = scope;
+        for (int i = scope + 1; i < scopes.size(); i++) {
+            Stmt.Function owner = scopeInfo.get(i).owner;
+            if (owner != null) {
+                if (!scopes.get(i).containsKey(name)) {
+                    scopes.get(i).put(name, symbol);
+                    owner.getCaptures().put(name, i - 1 - source);
+                }
+                if (symbol.cell != null) {
+                    symbol.captured = true;
+                }
+                source = i;
+            }
+        }
+        return source;
+    }
+
+    private void assigned(Token name) {
+        Symbol symbol = lookup(name);
+        if (symbol != null && symbol.cell != null) {
+            symbol.assigned = true;
+        }
+    }
+
+    private Symbol lookup(Token name) {
+        return lookup(name.getLexeme());
+    }
+
+    private Symbol lookup(String name) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Symbol symbol = scopes.get(i).get(name);
+            if (symbol != null) {
+                return symbol;
+            }
+        }
+        return globals.get(name);
+    }
+
     private void resolveFunction(Stmt.Function stmt, FunctionType type) {
+        if (stmt.isDeferred()) {
+            Includes visible = new Includes();
+            visible.addAll(includes);
+            Resolver deferred = new Resolver(interpreter, globals, redeclaredGlobals, visible, accesses);
+            for (int i = 0; i < scopes.size(); i++) {
+                deferred.scopes.push(new HashMap<>(scopes.get(i)));
+                deferred.redeclared.push(redeclared.get(i));
+                ScopeInfo info = new ScopeInfo(null, false);
+                info.includes.addAll(scopeInfo.get(i).includes);
+                deferred.scopeInfo.push(info);
+            }
+            deferred.currentStruct = currentStruct;
+            deferred.currentStructDeclaration = currentStructDeclaration;
+            stmt.whenParsed(body -> {
+                int errors = T.errorCount();
+                deferred.resolveFunction(stmt, type, body);
+                if (T.errorCount() > errors) {
+                    throw new RuntimeError(stmt.getName(), "ResolveError",
+                            "Invalid body in function '" + stmt.getName().getLexeme() + "'.");
+                }
+            });
+        }
+        else {
+            if (isFlat(stmt, type)) {
+                stmt.setCaptures(new LinkedHashMap<>());
+            }
+            resolveFunction(stmt, type, stmt.getBody());
+        }
+    }
+
+    private boolean isFlat(Stmt.Function stmt, FunctionType type) {
+        return type == FunctionType.FUNCTION && !stmt.isDeferred() && currentStruct == StructType.NONE &&
+                !scopeInfo.isEmpty() && scopeInfo.peek().frame;
+    }
+
+    private void resolveFunction(Stmt.Function stmt, FunctionType type, List<Stmt> body) {
         FunctionType enclosingFunction = currentFunction;
+        Stmt.Function enclosingDeclaration = currentDeclaration;
+        boolean enclosingReturnsChecked = returnsChecked;
         currentFunction = type;
-        beginScope();
+        currentDeclaration = stmt;
+        returnsChecked = true;
+        stmt.setFrameEscapes(false);
+        frames.push(stmt);
+        if (stmt.getCaptures() != null) {
+            scopes.push(new HashMap<>());
+            redeclared.push(Collections.emptySet());
+            scopeInfo.push(new ScopeInfo(stmt, false));
+        }
+        beginScope(redeclaredIn(body, stmt.getParams()), true);
         for (Expr.Param param : stmt.getParams()) {
+            String paramType = param.getType().getLexeme();
             declare(param.getName());
-            define(param.getName());
+            define(param.getName(), paramType, paramType.equals("free") ? null : paramType, null, param);
         }
-        resolveStmts(stmt.getBody());
+        resolveStmts(body);
         endScope();
+        if (stmt.getCaptures() != null) {
+            endScope();
+        }
+        frames.pop();
+        if (!stmt.isMethod()) {
+            String returnType = stmt.getType().getLexeme();
+            stmt.setReturnChecked(returnType.equals("free") ||
+                    (returnsChecked && (returnType.equals("void") || alwaysReturns(body))));
+        }
         currentFunction = enclosingFunction;
+        currentDeclaration = enclosingDeclaration;
+        returnsChecked = enclosingReturnsChecked;
+    }
+
+    private void markFramesEscaping() {
+        for (Stmt frame : frames) {
+            if (frame instanceof Stmt.Block) {
+                ((Stmt.Block)frame).setEscapes(true);
+            }
+            else {
+                ((Stmt.Function)frame).setFrameEscapes(true);
+            }
+        }
     }
 
     private void beginScope() {
+        beginScope(Collections.emptySet(), false);
+    }
+
+    private void beginScope(Set<String> redeclaredNames, boolean frame) {
         scopes.push(new HashMap<>());
+        redeclared.push(redeclaredNames);
+        scopeInfo.push(new ScopeInfo(null, frame));
     }
 
     private void endScope() {
         scopes.pop();
+        redeclared.pop();
+        for (List<Symbol> symbols : scopeInfo.pop().definitions.values()) {
+            boolean captured = false;
+            boolean mutated = symbols.size() > 1;
+            for (Symbol symbol : symbols) {
+                captured |= symbol.captured;
+                mutated |= symbol.assigned;
+            }
+            if (captured && mutated) {
+                for (Symbol symbol : symbols) {
+                    box(symbol.cell);
+                }
+            }
+        }
+    }
+
+    private static void box(Expr cell) {
+        if (cell instanceof Expr.Declaration) {
+            ((Expr.Declaration)cell).setBoxed(true);
+        }
+        else if (cell instanceof Expr.Param) {
+            ((Expr.Param)cell).setBoxed(true);
+        }
     }
 
     private void declare(Token name) {
         if (!scopes.isEmpty()) {
-            Map<String, Boolean> scope = scopes.peek();
-            scope.put(name.getLexeme(), false);
+            Map<String, Symbol> scope = scopes.peek();
+            scope.put(name.getLexeme(), UNDEFINED);
         }
     }
 
     private void define(Token name) {
-        if (!scopes.isEmpty()) {
-            Map<String, Boolean> scope = scopes.peek();
-            scope.put(name.getLexeme(), true);
+        define(name, null, null, null);
+    }
+
+    private void define(Token name, String declaredType, String valueType, Stmt declaration) {
+        define(name, declaredType, valueType, declaration, null);
+    }
+
+    private void define(Token name, String declaredType, String valueType, Stmt declaration, Expr cell) {
+        Symbol symbol;
+        boolean stable = scopes.isEmpty() ? !redeclaredGlobals.contains(name.getLexeme()) :
+                !redeclared.peek().contains(name.getLexeme());
+        if (stable) {
+            symbol = new Symbol(true, declaredType, valueType, declaration, cell);
+        }
+        else {
+            symbol = new Symbol(true, null, null, null, cell);
+        }
+        if (scopes.isEmpty()) {
+            globals.put(name.getLexeme(), symbol);
         }
+        else {
+            scopes.peek().put(name.getLexeme(), symbol);
+            scopeInfo.peek().definitions.computeIfAbsent(name.getLexeme(), k -> new ArrayList<>()).add(symbol);
+        }
+    }
+
+    private static String typeError(String expected, String received) {
+        return "Expected type " + expected + ", received type " + received + ".";
+    }
+
+    private static boolean alwaysReturns(List<Stmt> body) {
+        if (body.isEmpty()) {
+            return false;
+        }
+        return alwaysReturns(body.get(body.size() - 1));
+    }
+
+    private static boolean alwaysReturns(Stmt stmt) {
+        if (stmt instanceof Stmt.Expression) {
+            return ((Stmt.Expression)stmt).getExpr() instanceof Expr.Return;
+        }
+        if (stmt instanceof Stmt.Error) {
+            return true;
+        }
+        if (stmt instanceof Stmt.Block) {
+            return alwaysReturns(((Stmt.Block)stmt).getBody());
+        }
+        if (stmt instanceof Stmt.If) {
+            Stmt.If ifStmt = (Stmt.If)stmt;
+            return ifStmt.getElseBlock() != null && alwaysReturns(ifStmt.getThenBlock()) &&
+                    alwaysReturns(ifStmt.getElseBlock());
+        }
+        return false;
+    }
+
+    private static Set<String> redeclaredIn(List<Stmt> body, List<Expr.Param> params) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Expr.Param param : params) {
+            counts.merge(param.getName().getLexeme(), 1, Integer::sum);
+        }
+        for (Stmt stmt : body) {
+            countDeclarations(stmt, counts);
+        }
+        Set<String> names = new HashSet<>();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > 1) {
+                names.add(entry.getKey());
+            }
+        }
+        return names;
+    }
+
+    private static void countDeclarations(Stmt stmt, Map<String, Integer> counts) {
+        if (stmt instanceof Stmt.Expression) {
+            countDeclarations(((Stmt.Expression)stmt).getExpr(), counts);
+        }
+        else if (stmt instanceof Stmt.For) {
+            Stmt.For forStmt = (Stmt.For)stmt;
+            countDeclarations(forStmt.getInitializer(), counts);
+            countDeclarations(forStmt.getCondition(), counts);
+            countDeclarations(forStmt.getIncrement(), counts);
+        }
+        else if (stmt instanceof Stmt.While) {
+            countDeclarations(((Stmt.While)stmt).getCondition(), counts);
+        }
+        else if (stmt instanceof Stmt.If) {
+            countDeclarations(((Stmt.If)stmt).getCondition(), counts);
+        }
+        else if (stmt instanceof Stmt.Function) {
+            counts.merge(((Stmt.Function)stmt).getName().getLexeme(), 1, Integer::sum);
+        }
+        else if (stmt instanceof Stmt.Struct) {
+            counts.merge(((Stmt.Struct)stmt).getName().getLexeme(), 1, Integer::sum);
+        }
+        else if (stmt instanceof Stmt.Namespace) {
+            counts.merge(((Stmt.Namespace)stmt).getName().getLexeme(), 1, Integer::sum);
+        }
+        else if (stmt instanceof Stmt.Enum) {
+            counts.merge(((Stmt.Enum)stmt).getName().getLexeme(), 1, Integer::sum);
+        }
+    }
+
+    private static void countDeclarations(Expr expr, Map<String, Integer> counts) {
+        if (expr instanceof Expr.Declaration) {
+            Expr.Declaration declaration = (Expr.Declaration)expr;
+            counts.merge(declaration.getName().getLexeme(), 1, Integer::sum);
+            countDeclarations(declaration.getValue(), counts);
+        }
+        else if (expr instanceof Expr.Assign) {
+            countDeclarations(((Expr.Assign)expr).getTarget(), counts);
+            countDeclarations(((Expr.Assign)expr).getValue(), counts);
+        }
+        else if (expr instanceof Expr.Binary) {
+            countDeclarations(((Expr.Binary)expr).getLeft(), counts);
+            countDeclarations(((Expr.Binary)expr).getRight(), counts);
+        }
+        else if (expr instanceof Expr.Logical) {
+            countDeclarations(((Expr.Logical)expr).getLeft(), counts);
+            countDeclarations(((Expr.Logical)expr).getRight(), counts);
+        }
+        else if (expr instanceof Expr.Unary) {
+            countDeclarations(((Expr.Unary)expr).getExpr(), counts);
+        }
+        else if (expr instanceof Expr.Grouping) {
+            countDeclarations(((Expr.Grouping)expr).getExpr(), counts);
+        }
+        else if (expr instanceof Expr.Call) {
+            countDeclarations(((Expr.Call)expr).getCallee(), counts);
+            for (Expr arg : ((Expr.Call)expr).getArgs()) {
+                countDeclarations(arg, counts);
+            }
+        }
+        else if (expr instanceof Expr.Get) {
+            countDeclarations(((Expr.Get)expr).getExpr(), counts);
+        }
+        else if (expr instanceof Expr.Slice) {
+            countDeclarations(((Expr.Slice)expr).getSlicee(), counts);
+            countDeclarations(((Expr.Slice)expr).getSlicing(), counts);
+            countDeclarations(((Expr.Slice)expr).getEnd(), counts);
+        }
+        else if (expr instanceof Expr.Return) {
+            countDeclarations(((Expr.Return)expr).getExpr(), counts);
+        }
+    }
+
+    private static Stmt.Function constructorOf(Stmt.Struct struct) {
+        for (Stmt.Function function : struct.getFunctions()) {
+            if (function.getType().getType() == TokenType.CONS &&
+                    function.getName().getLexeme().equals(struct.getName().getLexeme())) {
+                return function;
+            }
+        }
+        return null;
     }
 
     //=========================================================================
 
     @Override
-    public Void visitVarExpr(Expr.Var expr) {
+    public String visitVarExpr(Expr.Var expr) {
         if (!scopes.isEmpty()) {
-            Map<String, Boolean> scope = scopes.peek();
+            Map<String, Symbol> scope = scopes.peek();
             String name = expr.getName().getLexeme();
             boolean defined = true;
             if (scope.containsKey(name)) {
-                defined = scope.get(name);
+                defined = scope.get(name).defined;
             }
             if (!defined) {
                 T.error(expr.getName(), "Cannot read local variable in its own initializer.");
+                return null;
             }
             else {
                 resolveLocal(expr, expr.getName());
@@ -108,29 +508,42 @@ public class Resolver implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
         else {
             resolveLocal(expr, expr.getName());
         }
-        return null;
+        Symbol symbol = lookup(expr.getName());
+        return symbol == null ? null : symbol.valueType;
     }
 
     @Override
-    public Void visitAssignExpr(Expr.Assign expr) {
-        resolve(expr.getValue());
+    public String visitAssignExpr(Expr.Assign expr) {
+        String valueType = resolve(expr.getValue());
         if (expr.getTarget() instanceof Expr.Var) {
             Expr.Var var = (Expr.Var)expr.getTarget();
             resolveLocal(expr, var.getName());
+            assigned(var.getName());
+            Symbol symbol = lookup(var.getName());
+            if (symbol != null && symbol.declaredType != null && valueType != null) {
+                if (symbol.declaredType.equals("free") || symbol.declaredType.equals(valueType)) {
+                    expr.setTypeChecked(true);
+                }
+                else {
+                    T.error(var.getName(), typeError(symbol.declaredType, valueType));
+                }
+            }
         }
         if (expr.getTarget() instanceof Expr.Get) {
-            Expr.Get get = (Expr.Get)expr.getTarget();
-            resolve(get);
+            resolveGet((Expr.Get)expr.getTarget(), true);
         }
         if (expr.getTarget() instanceof Expr.Slice) {
             Expr.Slice slice = (Expr.Slice)expr.getTarget();
+            if (slice.getEnd() != null) {
+                T.error(slice.getToken(), "Cannot assign to a range slice.");
+            }
             resolve(slice);
         }
-        return null;
+        return "void";
     }
 
     @Override
-    public Void visitReturnExpr(Expr.Return expr) {
+    public String visitReturnExpr(Expr.Return expr) {
         if (currentFunction == FunctionType.NONE) {
             T.error(expr.getToken(), "Cannot return from global scope.");
         }
@@ -138,93 +551,444 @@ public class Resolver implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
             if (currentFunction == FunctionType.INIT) {
                 T.error(expr.getToken(), "Cannot return from init.");
             }
-            resolve(expr.getExpr());
+            String type = resolve(expr.getExpr());
+            if (currentDeclaration != null && !currentDeclaration.isMethod()) {
+                String returnType = currentDeclaration.getType().getLexeme();
+                if (type == null) {
+                    returnsChecked = false;
+                }
+                else if (!returnType.equals("free") && !returnType.equals(type)) {
+                    T.error(expr.getToken(), "Function '" + currentDeclaration.getName().getLexeme() +
+                            "' expects return type " + returnType + ", received return type " + type + ".");
+                    returnsChecked = false;
+                }
+            }
         }
         return null;
     }
 
     @Override
-    public Void visitSliceExpr(Expr.Slice expr) {
-        resolve(expr.getSlicing());
-        resolve(expr.getSlicee());
-        return null;
+    public String visitSliceExpr(Expr.Slice expr) {
+        String slicing = resolve(expr.getSlicing());
+        String slicee = resolve(expr.getSlicee());
+        if (expr.getEnd() != null) {
+            String end = resolve(expr.getEnd());
+            if (slicee != null && !slicee.equals("char") && !slicee.equals("list")) {
+                T.error(expr.getToken(), "Can only slice ranges of chars and lists.");
+            }
+            else if (slicing != null && !slicing.equals("real") || end != null && !end.equals("real")) {
+                T.error(expr.getToken(), "Can only slice ranges at real indices.");
+            }
+            return slicee;
+        }
+        boolean keyed = "map".equals(slicee) || "dict".equals(slicee);
+        if (slicee != null && !slicee.equals("char") && !slicee.equals("list") && !slicee.equals("vector") &&
+                !slicee.equals("buffer") && !slicee.equals("columns") && !keyed) {
+            T.error(expr.getToken(), "Can only slice chars, lists, maps, vectors, dicts, buffers, and columns.");
+        }
+        else if (slicing != null && !slicing.equals("real") && !keyed) {
+            T.error(expr.getToken(), "Can only slice chars, lists, vectors, buffers, and columns at real indices.");
+        }
+        if ("buffer".equals(slicee)) {
+            return "real";
+        }
+        return "char".equals(slicee) ? "char" : null;
+    }
+
+    @Override
+    public String visitListLiteralExpr(Expr.ListLiteral expr) {
+        for (Expr element : expr.getElements()) {
+            resolve(element);
+        }
+        return "list";
+    }
+
+    @Override
+    public String visitMapLiteralExpr(Expr.MapLiteral expr) {
+        for (int i = 0; i < expr.getKeys().size(); i++) {
+            resolve(expr.getKeys().get(i));
+            resolve(expr.getValues().get(i));
+        }
+        return "map";
     }
 
     @Override
-    public Void visitBinaryExpr(Expr.Binary expr) {
-        resolve(expr.getLeft());
-        resolve(expr.getRight());
+    public String visitBinaryExpr(Expr.Binary expr) {
+        String left = resolve(expr.getLeft());
+        String right = resolve(expr.getRight());
+        switch (expr.getOperator().getType()) {
+            case MINUS:
+            case SLASH:
+            case STAR:
+            case MOD:
+            case LESS:
+            case LESS_EQ:
+            case GREATER:
+            case GREATER_EQ: {
+                if ((left != null && !left.equals("real")) || (right != null && !right.equals("real"))) {
+                    T.error(expr.getOperator(), "Operands must be reals.");
+                }
+                switch (expr.getOperator().getType()) {
+                    case MINUS:
+                    case SLASH:
+                    case STAR:
+                    case MOD:
+                        return "real";
+                    default:
+                        return "bool";
+                }
+            }
+            case PLUS: {
+                boolean leftValid = left == null || left.equals("real") || left.equals("char");
+                boolean rightValid = right == null || right.equals("real") || right.equals("char");
+                if (!leftValid || !rightValid || (left != null && right != null && !left.equals(right))) {
+                    T.error(expr.getOperator(), "Operands must be two reals or two chars.");
+                    return null;
+                }
+                return left != null ? left : right;
+            }
+            case EQ:
+            case NOT_EQ:
+                return "bool";
+        }
         return null;
     }
 
     @Override
-    public Void visitCallExpr(Expr.Call expr) {
+    public String visitCallExpr(Expr.Call expr) {
         resolve(expr.getCallee());
+        List<String> argTypes = new ArrayList<>();
         for (Expr arg : expr.getArgs()) {
-            resolve(arg);
+            argTypes.add(resolve(arg));
+        }
+        Stmt declaration = declarationOf(expr.getCallee());
+        Stmt.Function callee;
+        String returnType;
+        if (declaration instanceof Stmt.Function) {
+            callee = (Stmt.Function)declaration;
+            returnType = callee.getType().getLexeme();
+            if (returnType.equals("free") || callee.getType().getType() == TokenType.CONS) {
+                returnType = null;
+            }
+        }
+        else if (declaration instanceof Stmt.Struct) {
+            Stmt.Struct struct = (Stmt.Struct)declaration;
+            callee = constructorOf(struct);
+            returnType = struct.getName().getLexeme();
+        }
+        else {
+            return null;
+        }
+        List<Expr.Param> params = callee == null ? Collections.emptyList() : callee.getParams();
+        if (params.size() != argTypes.size()) {
+            T.error(expr.getMarker(), "Expected " + params.size() + " arguments, received " +
+                    argTypes.size() + ".");
+            return returnType;
+        }
+        boolean checked = true;
+        for (int i = 0; i < params.size(); i++) {
+            String paramType = params.get(i).getType().getLexeme();
+            String argType = argTypes.get(i);
+            if (paramType.equals("free")) {
+                continue;
+            }
+            if (argType == null) {
+                checked = false;
+            }
+            else if (!argType.equals(paramType)) {
+                T.error(expr.getMarker(), "Function '" + callee.getName().getLexeme() +
+                        "' expects parameter type " + paramType + ", received parameter type " + argType + ".");
+                checked = false;
+            }
+        }
+        if (checked && callee != null) {
+            expr.setCheckedCallee(callee);
+        }
+        if (declaration == callee) {
+            expr.setTarget(callee);
+        }
+        return returnType;
+    }
+
+    private void access(Expr.Get get, String type, boolean write) {
+        Stmt.Struct struct = null;
+        if (get.getExpr() instanceof Expr.This) {
+            struct = currentStructDeclaration;
+        }
+        else if (type != null) {
+            Symbol symbol = lookup(type);
+            if (symbol != null && symbol.declaration instanceof Stmt.Struct) {
+                struct = (Stmt.Struct)symbol.declaration;
+            }
+        }
+        if (write && struct != null && struct.isImmutable() && !(get.getExpr() instanceof Expr.This &&
+                currentDeclaration != null && currentDeclaration == constructorOf(struct))) {
+            T.error(get.getName(), "Cannot assign to attribute of immutable struct.");
+        }
+        Access access = new Access(get.getName(), struct, currentStructDeclaration, write);
+        if (accesses.resolved) {
+            checkAccess(access);
+        }
+        else {
+            accesses.pending.add(access);
+        }
+    }
+
+    private void checkAccess(Access access) {
+        String name = access.name.getLexeme();
+        boolean allowed = true;
+        if (access.type != null) {
+            for (Stmt.Struct struct = access.type; struct != null; struct = accesses.superstructs.get(struct)) {
+                AttrEnum protection = protectionOf(struct, name);
+                if (protection != null) {
+                    allowed = allows(struct, protection, access);
+                    break;
+                }
+            }
+        }
+        else if (accesses.owners.containsKey(name)) {
+            for (Stmt.Struct struct : accesses.owners.get(name)) {
+                allowed &= allows(struct, protectionOf(struct, name), access);
+            }
+        }
+        if (!allowed) {
+            T.error(access.name, access.write ? "Cannot assign to private or protected attribute." :
+                    "Cannot read private attribute.");
+        }
+    }
+
+    private boolean allows(Stmt.Struct owner, AttrEnum protection, Access access) {
+        switch (protection) {
+            case PRIVATE:
+                return access.context == owner;
+            case PROTECTED:
+                return !access.write || isSubstruct(access.context, owner);
+            default:
+                return true;
+        }
+    }
+
+    private boolean isSubstruct(Stmt.Struct struct, Stmt.Struct ancestor) {
+        for (; struct != null; struct = accesses.superstructs.get(struct)) {
+            if (struct == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static AttrEnum protectionOf(Stmt.Struct struct, String name) {
+        if (declares(struct.getProtectedAttrs(), name)) {
+            return AttrEnum.PROTECTED;
+        }
+        if (declares(struct.getPublicAttrs(), name)) {
+            return AttrEnum.PUBLIC;
+        }
+        if (declares(struct.getPrivateAttrs(), name)) {
+            return AttrEnum.PRIVATE;
         }
         return null;
     }
 
-    @Override
-    public Void visitGroupingExpr(Expr.Grouping expr) {
-        resolve(expr.getExpr());
+    private static boolean declares(List<Expr.Member> attrs, String name) {
+        if (attrs != null) {
+            for (Expr.Member attr : attrs) {
+                if (attr.getName().getLexeme().equals(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Stmt.Namespace namespaceOf(Expr expr) {
+        if (expr instanceof Expr.Var) {
+            Token name = ((Expr.Var)expr).getName();
+            Symbol symbol = lookup(name);
+            if (symbol == null) {
+                Namespace builtin = interpreter.builtin(name.getLexeme());
+                return builtin == null ? null : builtin.getDeclaration();
+            }
+            return symbol.declaration instanceof Stmt.Namespace ? (Stmt.Namespace)symbol.declaration : null;
+        }
+        if (expr instanceof Expr.Get && ((Expr.Get)expr).getNamespace() != null) {
+            Expr.Get get = (Expr.Get)expr;
+            Stmt member = memberOf(get.getNamespace(), get.getName());
+            return member instanceof Stmt.Namespace ? (Stmt.Namespace)member : null;
+        }
+        return null;
+    }
+
+    private static Stmt memberOf(Stmt.Namespace namespace, Token name) {
+        for (Stmt.Function function : namespace.getFunctions()) {
+            if (function.getName().getLexeme().equals(name.getLexeme())) {
+                return function;
+            }
+        }
+        for (Stmt.Struct struct : namespace.getStructs()) {
+            if (struct.getName().getLexeme().equals(name.getLexeme())) {
+                return struct;
+            }
+        }
+        for (Stmt.Namespace nspace : namespace.getNamespaces()) {
+            if (nspace.getName().getLexeme().equals(name.getLexeme())) {
+                return nspace;
+            }
+        }
+        return null;
+    }
+
+    private Stmt declarationOf(Expr callee) {
+        if (callee instanceof Expr.Var) {
+            Symbol symbol = lookup(((Expr.Var)callee).getName());
+            return symbol == null ? null : symbol.declaration;
+        }
+        if (callee instanceof Expr.Get && ((Expr.Get)callee).getExpr() instanceof Expr.Var) {
+            Expr.Get get = (Expr.Get)callee;
+            Symbol symbol = lookup(((Expr.Var)get.getExpr()).getName());
+            if (symbol == null || !(symbol.declaration instanceof Stmt.Namespace)) {
+                return null;
+            }
+            Stmt.Function member = null;
+            for (Stmt.Function function : ((Stmt.Namespace)symbol.declaration).getFunctions()) {
+                if (function.getName().getLexeme().equals(get.getName().getLexeme())) {
+                    if (member != null) {
+                        return null;
+                    }
+                    member = function;
+                }
+            }
+            return member;
+        }
         return null;
     }
 
     @Override
-    public Void visitLiteralExpr(Expr.Literal expr) {
+    public String visitInlineExpr(Expr.Inline expr) {
+        for (Expr arg : expr.getCall().getArgs()) {
+            resolve(arg);
+        }
         return null;
     }
 
     @Override
-    public Void visitLogicalExpr(Expr.Logical expr) {
-        resolve(expr.getLeft());
-        resolve(expr.getRight());
+    public String visitCachedExpr(Expr.Cached expr) {
+        return resolve(expr.getExpr());
+    }
+
+    @Override
+    public String visitGroupingExpr(Expr.Grouping expr) {
+        return resolve(expr.getExpr());
+    }
+
+    @Override
+    public String visitLiteralExpr(Expr.Literal expr) {
+        return interpreter.typeOf(expr.getValue());
+    }
+
+    @Override
+    public String visitLogicalExpr(Expr.Logical expr) {
+        String left = resolve(expr.getLeft());
+        String right = resolve(expr.getRight());
+        if (left != null && left.equals(right)) {
+            return left;
+        }
         return null;
     }
 
     @Override
-    public Void visitUnaryExpr(Expr.Unary expr) {
-        resolve(expr.getExpr());
+    public String visitUnaryExpr(Expr.Unary expr) {
+        TokenType operator = expr.getOperator().getType();
+        String type;
+        if (expr.getExpr() instanceof Expr.Get && (operator == TokenType.INCR || operator == TokenType.DECR)) {
+            type = resolveGet((Expr.Get)expr.getExpr(), true);
+        }
+        else {
+            type = resolve(expr.getExpr());
+        }
+        switch (operator) {
+            case NOT:
+                return "bool";
+            case MINUS: {
+                if (type != null && !type.equals("real")) {
+                    T.error(expr.getOperator(), "Can only negate reals.");
+                }
+                return "real";
+            }
+            case INCR:
+            case DECR: {
+                if (expr.getExpr() instanceof Expr.Var) {
+                    assigned(((Expr.Var)expr.getExpr()).getName());
+                }
+                if (type != null && !type.equals("real")) {
+                    T.error(expr.getOperator(), "Can only increment reals.");
+                }
+                return "void";
+            }
+        }
         return null;
     }
 
     @Override
-    public Void visitGetExpr(Expr.Get expr) {
-        resolve(expr.getExpr());
+    public String visitGetExpr(Expr.Get expr) {
+        return resolveGet(expr, false);
+    }
+
+    private String resolveGet(Expr.Get expr, boolean write) {
+        access(expr, resolve(expr.getExpr()), write);
+        Stmt.Namespace namespace = namespaceOf(expr.getExpr());
+        if (namespace != null) {
+            if (memberOf(namespace, expr.getName()) == null) {
+                T.error(expr.getName(), "Namespace <namespace " + namespace.getName().getLexeme() +
+                        "> has no member function, struct, or namespace '" + expr.getName().getLexeme() + "'.");
+            }
+            else {
+                expr.bind(namespace, namespace.slotOf(expr.getName().getLexeme()));
+                if (!isIncluded(namespace)) {
+                    T.error(expr.getName(), "Cannot access namespace that has not been included.");
+                }
+            }
+        }
         return null;
     }
 
     @Override
-    public Void visitThisExpr(Expr.This expr) {
+    public String visitThisExpr(Expr.This expr) {
         resolveLocal(expr, expr.getToken());
         return null;
     }
 
     @Override
-    public Void visitSuperExpr(Expr.Super expr) {
+    public String visitSuperExpr(Expr.Super expr) {
         resolveLocal(expr, expr.getToken());
         return null;
     }
 
     @Override
-    public Void visitParamExpr(Expr.Param expr) {
+    public String visitParamExpr(Expr.Param expr) {
         return null;
     }
 
     @Override
-    public Void visitDeclarationExpr(Expr.Declaration expr) {
+    public String visitDeclarationExpr(Expr.Declaration expr) {
+        String declaredType = expr.getType().getLexeme();
+        boolean free = declaredType.equals("free");
         declare(expr.getName());
         if (expr.getValue() != null) {
-            resolve(expr.getValue());
+            String valueType = resolve(expr.getValue());
+            if (free || declaredType.equals(valueType)) {
+                expr.setTypeChecked(true);
+            }
+            else if (valueType != null) {
+                T.error(expr.getName(), typeError(declaredType, valueType));
+            }
         }
-        define(expr.getName());
-        return null;
+        define(expr.getName(), declaredType, expr.getValue() == null || free ? null : declaredType, null, expr);
+        return "void";
     }
 
     @Override
-    public Void visitMemberExpr(Expr.Member expr) {
+    public String visitMemberExpr(Expr.Member expr) {
         return null;
     }
 
@@ -232,16 +996,22 @@ public class Resolver implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
 
     @Override
     public Void visitBlockStmt(Stmt.Block stmt) {
-        beginScope();
+        stmt.setEscapes(false);
+        frames.push(stmt);
+        beginScope(redeclaredIn(stmt.getBody(), Collections.emptyList()), true);
         resolveStmts(stmt.getBody());
         endScope();
+        frames.pop();
         return null;
     }
 
     @Override
     public Void visitFunctionStmt(Stmt.Function stmt) {
+        if (!isFlat(stmt, FunctionType.FUNCTION)) {
+            markFramesEscaping();
+        }
         declare(stmt.getName());
-        define(stmt.getName());
+        define(stmt.getName(), null, "fn", stmt);
         resolveFunction(stmt, FunctionType.FUNCTION);
         return null;
     }
@@ -271,20 +1041,35 @@ public class Resolver implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
 
     @Override
     public Void visitStructStmt(Stmt.Struct stmt) {
+        markFramesEscaping();
         StructType enclosingType = currentStruct;
+        Stmt.Struct enclosingDeclaration = currentStructDeclaration;
         currentStruct = StructType.STRUCT;
+        currentStructDeclaration = stmt;
         declare(stmt.getName());
         if (stmt.getSuperstruct() != null) {
             currentStruct = StructType.SUBSTRUCT;
             resolve(stmt.getSuperstruct());
+            Symbol superstruct = lookup(stmt.getSuperstruct().getName());
+            if (superstruct != null && superstruct.declaration instanceof Stmt.Struct) {
+                accesses.superstructs.put(stmt, (Stmt.Struct)superstruct.declaration);
+            }
         }
-        define(stmt.getName());
+        for (List<Expr.Member> attrs : Arrays.asList(stmt.getPrivateAttrs(), stmt.getPublicAttrs(),
+                stmt.getProtectedAttrs())) {
+            if (attrs != null) {
+                for (Expr.Member attr : attrs) {
+                    accesses.owners.computeIfAbsent(attr.getName().getLexeme(), k -> new ArrayList<>()).add(stmt);
+                }
+            }
+        }
+        define(stmt.getName(), null, "struct", stmt);
         if (stmt.getSuperstruct() != null) {
             beginScope();
-            scopes.peek().put("super", true);
+            scopes.peek().put("super", UNKNOWN);
         }
         beginScope();
-        scopes.peek().put("this", true);
+        scopes.peek().put("this", UNKNOWN);
         for (Stmt.Function method : stmt.getFunctions()) {
             FunctionType declaration = FunctionType.METHOD;
             if (method.getName().getLexeme().equals("init")) {
@@ -297,22 +1082,15 @@ public class Resolver implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
             endScope();
         }
         currentStruct = enclosingType;
+        currentStructDeclaration = enclosingDeclaration;
         return null;
     }
 
     @Override
     public Void visitNamespaceStmt(Stmt.Namespace stmt) {
-        define(stmt.getName());
-        beginScope();
-        for (Stmt.Struct struct : stmt.getStructs()) {
-            resolve(struct);
-        }
-        for (Stmt.Function function : stmt.getFunctions()) {
-            resolve(function);
-        }
-        for (Stmt.Namespace namespace : stmt.getNamespaces()) {
-            resolve(namespace);
-        }
+        markFramesEscaping();
+        define(stmt.getName(), null, null, stmt);
+        beginScope(redeclaredIn(stmt.getBody(), Collections.emptyList()), false);
         resolveStmts(stmt.getBody());
         endScope();
         return null;
@@ -341,6 +1119,17 @@ public class Resolver implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
     @Override
     public Void visitIncludeStmt(Stmt.Include stmt) {
         resolve(stmt.getExpr());
+        Stmt.Namespace namespace = namespaceOf(stmt.getExpr());
+        if (namespace != null) {
+            currentIncludes().included.add(namespace);
+        }
+        else if (declarationOf(stmt.getExpr()) instanceof Stmt.Function ||
+                declarationOf(stmt.getExpr()) instanceof Stmt.Struct) {
+            T.error(stmt.getToken(), "Can only include namespaces.");
+        }
+        else {
+            currentIncludes().dynamic = true;
+        }
         return null;
     }
 }
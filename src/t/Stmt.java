@@ -1,6 +1,12 @@
 package t;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public abstract class Stmt {
     interface Visitor<T> {
@@ -24,7 +30,15 @@ public abstract class Stmt {
         private final Token name;
         private final List<Expr.Param> params;
         private boolean isMethod = false;
-        private final List<Stmt> body;
+        private boolean returnChecked = false;
+        private boolean frameEscapes = true;
+        private Map<String, Integer> captures = null;
+        private boolean builtin = false;
+        private boolean pure = false;
+        private List<Stmt> body;
+        private Supplier<List<Stmt>> deferredBody;
+        private Set<String> references;
+        private Compiled compiled;
 
         public Function(Token type, Token name, List<Expr.Param> params, List<Stmt> body) {
             this.type = type;
@@ -33,6 +47,15 @@ public abstract class Stmt {
             this.body = body;
         }
 
+        public Function(Token type, Token name, List<Expr.Param> params,
+                        Supplier<List<Stmt>> deferredBody, Set<String> references) {
+            this.type = type;
+            this.name = name;
+            this.params = params;
+            this.deferredBody = deferredBody;
+            this.references = references;
+        }
+
         public Token getType() {
             return type;
         }
@@ -53,10 +76,80 @@ public abstract class Stmt {
             return isMethod;
         }
 
+        public void setReturnChecked(boolean returnChecked) {
+            this.returnChecked = returnChecked;
+        }
+
+        public boolean isReturnChecked() {
+            return returnChecked;
+        }
+
+        public void setFrameEscapes(boolean frameEscapes) {
+            this.frameEscapes = frameEscapes;
+        }
+
+        public boolean frameEscapes() {
+            return frameEscapes;
+        }
+
+        public void setCaptures(Map<String, Integer> captures) {
+            this.captures = captures;
+        }
+
+        public Map<String, Integer> getCaptures() {
+            return captures;
+        }
+
+        public void setBuiltin(boolean pure) {
+            this.builtin = true;
+            this.pure = pure;
+        }
+
+        public boolean isBuiltin() {
+            return builtin;
+        }
+
+        public boolean isPure() {
+            return pure;
+        }
+
+        public void setCompiled(Compiled compiled) {
+            this.compiled = compiled;
+        }
+
+        public Compiled getCompiled() {
+            return compiled;
+        }
+
         public List<Stmt> getBody() {
+            if (body == null) {
+                body = deferredBody.get();
+                deferredBody = null;
+            }
             return body;
         }
 
+        public Set<String> getReferences() {
+            return references;
+        }
+
+        public boolean isDeferred() {
+            return body == null;
+        }
+
+        public void whenParsed(Consumer<List<Stmt>> action) {
+            if (body != null) {
+                action.accept(body);
+                return;
+            }
+            Supplier<List<Stmt>> parse = deferredBody;
+            deferredBody = () -> {
+                List<Stmt> parsed = parse.get();
+                action.accept(parsed);
+                return parsed;
+            };
+        }
+
         <T> T accept(Visitor<T> visitor) {
             return visitor.visitFunctionStmt(this);
         }
@@ -70,6 +163,7 @@ public abstract class Stmt {
         private final List<Expr.Member> publicAttrs;
         private final List<Expr.Member> protectedAttrs;
         private final Expr.Var superstruct;
+        private boolean immutable = false;
 
         public Struct(Token name, List<Function> functions, List<Struct> structs,
                       List<Expr.Member> privateAttrs, List<Expr.Member> publicAttrs,
@@ -111,6 +205,14 @@ public abstract class Stmt {
             return superstruct;
         }
 
+        public void setImmutable(boolean immutable) {
+            this.immutable = immutable;
+        }
+
+        public boolean isImmutable() {
+            return immutable;
+        }
+
         <T> T accept(Visitor<T> visitor) {
             return visitor.visitStructStmt(this);
         }
@@ -122,6 +224,7 @@ public abstract class Stmt {
         private final List<Struct> structs;
         private final List<Namespace> namespaces;
         private final List<Stmt> body;
+        private final Map<String, Integer> slots = new HashMap<>();
 
         public Namespace(Token name, List<Function> functions, List<Struct> structs,
                          List<Namespace> namespaces, List<Stmt> body) {
@@ -152,6 +255,10 @@ public abstract class Stmt {
             return body;
         }
 
+        public int slotOf(String member) {
+            return slots.computeIfAbsent(member, k -> slots.size());
+        }
+
         <T> T accept(Visitor<T> visitor) {
             return visitor.visitNamespaceStmt(this);
         }
@@ -184,6 +291,7 @@ public abstract class Stmt {
         private final Expr condition;
         private final Expr increment;
         private final Block body;
+        private List<Token> slots = Collections.emptyList();
 
         public For(Expr initializer, Expr condition, Expr increment, Block body) {
             this.initializer = initializer;
@@ -208,6 +316,14 @@ public abstract class Stmt {
             return body;
         }
 
+        public void setSlots(List<Token> slots) {
+            this.slots = slots;
+        }
+
+        public List<Token> getSlots() {
+            return slots;
+        }
+
         <T> T accept(Visitor<T> visitor) {
             return visitor.visitForStmt(this);
         }
@@ -215,6 +331,7 @@ public abstract class Stmt {
 
     public static class Block extends Stmt {
         private final List<Stmt> body;
+        private boolean escapes = true;
 
         public Block(List<Stmt> body) {
             this.body = body;
@@ -224,6 +341,14 @@ public abstract class Stmt {
             return body;
         }
 
+        public void setEscapes(boolean escapes) {
+            this.escapes = escapes;
+        }
+
+        public boolean escapes() {
+            return escapes;
+        }
+
         <T> T accept(Visitor<T> visitor) {
             return visitor.visitBlockStmt(this);
         }
@@ -304,6 +429,7 @@ public abstract class Stmt {
     public static class While extends Stmt {
         private final Expr condition;
         private final Stmt body;
+        private List<Token> slots = Collections.emptyList();
 
         public While(Expr condition, Stmt body) {
             this.condition = condition;
@@ -318,6 +444,14 @@ public abstract class Stmt {
             return body;
         }
 
+        public void setSlots(List<Token> slots) {
+            this.slots = slots;
+        }
+
+        public List<Token> getSlots() {
+            return slots;
+        }
+
         <T> T accept(Visitor<T> visitor) {
             return visitor.visitWhileStmt(this);
         }
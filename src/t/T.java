@@ -1,25 +1,97 @@
 package t;
 
+import t.ir.IrCompiler;
+
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class T {
     private final static Interpreter interpreter = new Interpreter();
     private static boolean hadError = false;
+    private static int errors = 0;
+    private static final ThreadLocal<List<Runnable>> collected = new ThreadLocal<>();
     private static boolean hadRuntimeError = false;
+    private static boolean parallel = false;
+    private static boolean lazy = false;
+    private static boolean optimize = true;
+    private static boolean dumpAst = false;
+    private static boolean frameStats = false;
+    private static int inlineThreshold = 16;
+    private static boolean reportInlining = false;
+    private static boolean ir = false;
+    private static boolean dumpIr = false;
+    private static Path cacheDir = null;
+    private static AstCache cache = null;
 
     public static void main(String[] args) throws IOException {
-        if (args.length != 1) {
+        String path = null;
+        for (String arg : args) {
+            if (arg.equals("--parallel")) {
+                parallel = true;
+            }
+            else if (arg.equals("--lazy")) {
+                lazy = true;
+            }
+            else if (arg.equals("--no-optimize")) {
+                optimize = false;
+            }
+            else if (arg.equals("--dump-ast")) {
+                dumpAst = true;
+            }
+            else if (arg.equals("--frame-stats")) {
+                frameStats = true;
+            }
+            else if (arg.startsWith("--inline=")) {
+                try {
+                    inlineThreshold = Integer.parseInt(arg.substring("--inline=".length()));
+                }
+                catch (NumberFormatException e) {
+                    path = null;
+                    break;
+                }
+            }
+            else if (arg.equals("--report-inlining")) {
+                reportInlining = true;
+            }
+            else if (arg.equals("--ir")) {
+                ir = true;
+            }
+            else if (arg.equals("--dump-ir")) {
+                ir = true;
+                dumpIr = true;
+            }
+            else if (arg.equals("--cache")) {
+                cacheDir = Paths.get(System.getProperty("user.home"), ".tcache");
+            }
+            else if (arg.startsWith("--cache=")) {
+                cacheDir = Paths.get(arg.substring("--cache=".length()));
+            }
+            else if (path == null && !arg.startsWith("--")) {
+                path = arg;
+            }
+            else {
+                path = null;
+                break;
+            }
+        }
+        if (path == null) {
             System.out.println("Idiot...");
-            System.out.println("Usage: tc <file>");
+            System.out.println("Usage: tc [--parallel] [--lazy] [--no-optimize] [--dump-ast] " +
+                    "[--frame-stats] [--inline=<size>] [--report-inlining] [--ir] [--dump-ir] [--cache[=<dir>]] <file>");
             System.exit(1);
         }
         else {
-            runFile(args[0]);
+            if (cacheDir != null) {
+                cache = new AstCache(cacheDir, (lazy ? "lazy;" : "") +
+                        (optimize ? "optimize;inline=" + inlineThreshold : ""));
+            }
+            runFile(path);
         }
     }
 
@@ -27,6 +99,9 @@ public class T {
         try {
             byte[] bytes = Files.readAllBytes(Paths.get(path));
             run(new String(bytes, Charset.defaultCharset()));
+            if (frameStats) {
+                System.err.println(interpreter.frameStats());
+            }
         }
         catch (NoSuchFileException e) {
             System.err.println("File not found.");
@@ -41,18 +116,67 @@ public class T {
     }
 
     private static void run(String text) {
-        Tokenizer tokenizer = new Tokenizer(text);
-        List<Token> tokens = tokenizer.tokenize();
-        Parser parser = new Parser(tokens);
-        List<Stmt> stmts = parser.parse();
+        List<Stmt> stmts = null;
+        if (cache != null) {
+            stmts = cache.load(text, interpreter);
+            if (stmts != null) {
+                execute(stmts);
+                return;
+            }
+        }
+        if (parallel) {
+            stmts = new ParallelParser(text, lazy).parse();
+        }
+        else {
+            Tokenizer tokenizer = new Tokenizer(text);
+            List<Token> tokens = tokenizer.tokenize();
+            Parser parser = new Parser(tokens, lazy);
+            stmts = parser.parse();
+        }
         if (hadError) {
             return;
         }
+        if (optimize) {
+            Optimizer optimizer = new Optimizer(interpreter);
+            optimizer.optimizeStmts(stmts);
+        }
+        if (dumpAst) {
+            System.out.print(new AstPrinter().print(stmts));
+            return;
+        }
         Resolver resolver = new Resolver(interpreter);
         resolver.resolveStmts(stmts);
+        if (cache != null) {
+            AstCache.force(stmts, interpreter);
+        }
         if (hadError) {
             return;
         }
+        if (optimize) {
+            Pruner pruner = new Pruner();
+            pruner.pruneStmts(stmts);
+        }
+        if (optimize && inlineThreshold > 0) {
+            Inliner inliner = new Inliner(interpreter, inlineThreshold, reportInlining);
+            inliner.inlineStmts(stmts);
+        }
+        if (optimize) {
+            LoopOptimizer loops = new LoopOptimizer(interpreter);
+            loops.optimizeStmts(stmts);
+        }
+        if (cache != null) {
+            cache.store(text, stmts, interpreter);
+        }
+        execute(stmts);
+    }
+
+    private static void execute(List<Stmt> stmts) {
+        if (ir) {
+            new IrCompiler(interpreter, dumpIr).compileStmts(stmts);
+            if (dumpIr) {
+                return;
+            }
+        }
         interpreter.interpret(stmts);
     }
 
@@ -65,8 +189,29 @@ public class T {
     }
 
     static void report(int line, String message) {
+        List<Runnable> sink = collected.get();
+        if (sink != null) {
+            sink.add(() -> report(line, message));
+            return;
+        }
         System.err.println("[line " + line + "]: " + message);
         hadError = true;
+        errors++;
+    }
+
+    static <R> R collect(List<Runnable> sink, Supplier<R> action) {
+        List<Runnable> previous = collected.get();
+        collected.set(sink);
+        try {
+            return action.get();
+        }
+        finally {
+            collected.set(previous);
+        }
+    }
+
+    static int errorCount() {
+        return errors;
     }
 
     static void runtimeError(RuntimeError e) {
@@ -29,10 +29,10 @@ public enum TokenType {
     // Keywords
     FN, STRUCT, RETURN, THIS, SUPER, NIL, INCLUDE, EXCLUDE, MATCH, IF, ELIF,
     ELSE, FOR, WHILE, BLOCK, NAMESPACE, ERROR, TRY, CATCH, PRIVATE, PUBLIC,
-    PROTECTED, ENUM, EXTENDS, CONS,
+    PROTECTED, ENUM, EXTENDS, CONS, IMMUTABLE,
 
     // Types
-    REAL, CHAR, BOOL, VOID, FREE,
+    REAL, CHAR, BOOL, LIST, MAP, VOID, FREE,
 
     // End of File
     EOF
@@ -42,9 +42,12 @@ public class Tokenizer {
         keywords.put("try", TRY);
         keywords.put("catch", CATCH);
         keywords.put("enum", ENUM);
+        keywords.put("immutable", IMMUTABLE);
         keywords.put("real", REAL);
         keywords.put("char", CHAR);
         keywords.put("bool", BOOL);
+        keywords.put("list", LIST);
+        keywords.put("map", MAP);
         keywords.put("void", VOID);
         keywords.put("and", AND);
         keywords.put("or", OR);
@@ -61,7 +64,12 @@ public class Tokenizer {
     }
 
     Tokenizer(String text) {
+        this(text, 1);
+    }
+
+    Tokenizer(String text, int line) {
         this.text = text;
+        this.line = line;
     }
 
     //=========================================================================
@@ -0,0 +1,52 @@
+package t.includes;
+
+import t.*;
+import t.types.Columns;
+import t.types.Function;
+import t.types.Struct;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static t.TokenType.*;
+
+public class Columnar {
+    private Environment env;
+    private List<Function> functions = new ArrayList<>();
+
+    public Columnar(Environment env) {
+        this.env = env;
+        functions.add(of());
+        for (Function function : functions) {
+            function.getDeclaration().setBuiltin(false);
+        }
+    }
+
+    public List<Function> getFunctions() {
+        return functions;
+    }
+
+    private Function of() {
+        Token name = new Token(ID, "of", null, 0);
+        return new Function(new Stmt.Function(new Token(ID, "columns", null, 0), name,
+                Arrays.asList(
+                        new Expr.Param(new Token(FREE, "free", null, 0),
+                                new Token(ID, "struct", null, 0))
+                ), new ArrayList<>()), env, false, false) {
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                Object arg = args.get(0);
+                if (!(arg instanceof Struct)) {
+                    throw new RuntimeError(name, "TypeError", "Can only make columns of structs.");
+                }
+                return new Columns((Struct)arg);
+            }
+
+            @Override
+            public String toString() {
+                return "<columns fn of>";
+            }
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package t.includes;
+
+import t.*;
+import t.types.Enum;
+import t.types.EnumFlags;
+import t.types.Function;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static t.TokenType.*;
+
+public class Flags {
+    private Environment env;
+    private List<Function> functions = new ArrayList<>();
+
+    public Flags(Environment env) {
+        this.env = env;
+        functions.add(flags("none", false));
+        functions.add(flags("all", true));
+        for (Function function : functions) {
+            function.getDeclaration().setBuiltin(false);
+        }
+    }
+
+    public List<Function> getFunctions() {
+        return functions;
+    }
+
+    private Function flags(String name, boolean full) {
+        Token token = new Token(ID, name, null, 0);
+        return new Function(new Stmt.Function(new Token(ID, "flags", null, 0), token,
+                Arrays.asList(
+                        new Expr.Param(new Token(FREE, "free", null, 0),
+                                new Token(ID, "e", null, 0))
+                ), new ArrayList<>()), env, false, false) {
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                Object arg = args.get(0);
+                if (!(arg instanceof Enum)) {
+                    throw new RuntimeError(token, "TypeError", "Can only make flags of enums.");
+                }
+                return new EnumFlags((Enum)arg, full);
+            }
+
+            @Override
+            public String toString() {
+                return "<flags fn " + name + ">";
+            }
+        };
+    }
+}
@@ -1,6 +1,7 @@
 package t.includes;
 
 import t.*;
+import t.types.Builder;
 import t.types.Char;
 import t.types.Function;
 
@@ -26,6 +27,10 @@ public class IO {
         functions.add(println());
         functions.add(input());
         functions.add(fprint());
+        functions.add(builder());
+        for (Function function : functions) {
+            function.getDeclaration().setBuiltin(false);
+        }
     }
 
     public List<Function> getFunctions() {
@@ -125,4 +130,20 @@ public class IO {
             }
         };
     }
+
+    private Function builder() {
+        return new Function(new Stmt.Function(new Token(ID, "builder", null, 0),
+                new Token(ID, "builder", null, 0),
+                new ArrayList<>(), new ArrayList<>()), env, false, false) {
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                return new Builder();
+            }
+
+            @Override
+            public String toString() {
+                return "<builder fn builder>";
+            }
+        };
+    }
 }
@@ -0,0 +1,72 @@
+package t.includes;
+
+import t.*;
+import t.types.Buffer;
+import t.types.Char;
+import t.types.Function;
+import t.types.Real;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static t.TokenType.*;
+
+public class Memory {
+    private Environment env;
+    private List<Function> functions = new ArrayList<>();
+
+    public Memory(Environment env) {
+        this.env = env;
+        functions.add(alloc());
+        functions.add(open());
+        for (Function function : functions) {
+            function.getDeclaration().setBuiltin(false);
+        }
+    }
+
+    public List<Function> getFunctions() {
+        return functions;
+    }
+
+    private Function alloc() {
+        Token name = new Token(ID, "alloc", null, 0);
+        return new Function(new Stmt.Function(new Token(ID, "buffer", null, 0), name,
+                Arrays.asList(
+                        new Expr.Param(new Token(REAL, "real", null, 0),
+                                new Token(ID, "length", null, 0))
+                ), new ArrayList<>()), env, false, false) {
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                return Buffer.allocate(name, Buffer.integer(name, ((Real)args.get(0)).getValue()));
+            }
+
+            @Override
+            public String toString() {
+                return "<buffer fn alloc>";
+            }
+        };
+    }
+
+    private Function open() {
+        Token name = new Token(ID, "open", null, 0);
+        return new Function(new Stmt.Function(new Token(ID, "buffer", null, 0), name,
+                Arrays.asList(
+                        new Expr.Param(new Token(CHAR, "char", null, 0),
+                                new Token(ID, "file", null, 0)),
+                        new Expr.Param(new Token(REAL, "real", null, 0),
+                                new Token(ID, "length", null, 0))
+                ), new ArrayList<>()), env, false, false) {
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                return Buffer.map(name, ((Char)args.get(0)).getValue(),
+                        Buffer.integer(name, ((Real)args.get(1)).getValue()));
+            }
+
+            @Override
+            public String toString() {
+                return "<buffer fn open>";
+            }
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package t.includes;
+
+import t.*;
+import t.types.Function;
+import t.types.PersistentMap;
+import t.types.PersistentVector;
+import t.types.Sequence;
+import t.types.Table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static t.TokenType.*;
+
+public class Persistent {
+    private Environment env;
+    private List<Function> functions = new ArrayList<>();
+
+    public Persistent(Environment env) {
+        this.env = env;
+        functions.add(vector());
+        functions.add(dict());
+        for (Function function : functions) {
+            function.getDeclaration().setBuiltin(false);
+        }
+    }
+
+    public List<Function> getFunctions() {
+        return functions;
+    }
+
+    private Function vector() {
+        return new Function(new Stmt.Function(new Token(ID, "vector", null, 0),
+                new Token(ID, "vector", null, 0),
+                Arrays.asList(
+                        new Expr.Param(new Token(LIST, "list", null, 0),
+                                new Token(ID, "elements", null, 0))
+                ), new ArrayList<>()), env, false, false) {
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                return PersistentVector.of((Sequence)args.get(0));
+            }
+
+            @Override
+            public String toString() {
+                return "<vector fn vector>";
+            }
+        };
+    }
+
+    private Function dict() {
+        Token name = new Token(ID, "dict", null, 0);
+        return new Function(new Stmt.Function(new Token(ID, "dict", null, 0), name,
+                Arrays.asList(
+                        new Expr.Param(new Token(MAP, "map", null, 0),
+                                new Token(ID, "entries", null, 0))
+                ), new ArrayList<>()), env, false, false) {
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                return PersistentMap.of(name, (Table)args.get(0));
+            }
+
+            @Override
+            public String toString() {
+                return "<dict fn dict>";
+            }
+        };
+    }
+}
@@ -19,6 +19,9 @@ public class Time {
         this.env = env;
         this.functions = new ArrayList<>();
         functions.add(clock());
+        for (Function function : functions) {
+            function.getDeclaration().setBuiltin(false);
+        }
     }
 
     public List<Function> getFunctions() {
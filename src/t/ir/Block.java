@@ -0,0 +1,48 @@
+package t.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Block {
+    final int id;
+    final List<Instr.Phi> phis = new ArrayList<>();
+    final List<Instr> instrs = new ArrayList<>();
+    final List<Block> preds = new ArrayList<>();
+    Instr.Terminator terminator;
+
+    Block(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public List<Instr.Phi> getPhis() {
+        return phis;
+    }
+
+    public List<Instr> getInstrs() {
+        return instrs;
+    }
+
+    public List<Block> getPreds() {
+        return preds;
+    }
+
+    public Instr.Terminator getTerminator() {
+        return terminator;
+    }
+
+    public List<Block> successors() {
+        return terminator == null ? new ArrayList<>() : terminator.successors();
+    }
+
+    void removePred(Block pred) {
+        int index = preds.indexOf(pred);
+        preds.remove(index);
+        for (Instr.Phi phi : phis) {
+            phi.operands.remove(index);
+        }
+    }
+}
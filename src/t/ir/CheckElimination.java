@@ -0,0 +1,120 @@
+package t.ir;
+
+import t.TokenType;
+
+import java.util.Iterator;
+import java.util.List;
+
+public class CheckElimination implements Pass {
+    @Override
+    public boolean run(IrFunction function) {
+        infer(function);
+        boolean changed = false;
+        for (Block block : function.blocks) {
+            Iterator<Instr> instrs = block.instrs.iterator();
+            while (instrs.hasNext()) {
+                Instr instr = instrs.next();
+                if (instr instanceof Instr.CheckType) {
+                    Instr.CheckType check = (Instr.CheckType)instr;
+                    if (check.getValue().type.satisfies(check.getExpected())) {
+                        instrs.remove();
+                        changed = true;
+                    }
+                }
+                else if (instr instanceof Instr.Binary) {
+                    Instr.Binary binary = (Instr.Binary)instr;
+                    if (!binary.checked && checked(binary)) {
+                        binary.checked = true;
+                        changed = true;
+                    }
+                }
+                else if (instr instanceof Instr.Negate) {
+                    Instr.Negate negate = (Instr.Negate)instr;
+                    if (!negate.checked && negate.getValue().type == IrType.REAL) {
+                        negate.checked = true;
+                        changed = true;
+                    }
+                }
+                else if (instr instanceof Instr.Step) {
+                    Instr.Step step = (Instr.Step)instr;
+                    if (!step.checked && step.getValue().type == IrType.REAL) {
+                        step.checked = true;
+                        changed = true;
+                    }
+                }
+            }
+            if (block.terminator instanceof Instr.Branch) {
+                Instr.Branch branch = (Instr.Branch)block.terminator;
+                if (!branch.checked && branch.getCondition().type == IrType.BOOL) {
+                    branch.checked = true;
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static boolean checked(Instr.Binary binary) {
+        IrType left = binary.getLeft().type;
+        IrType right = binary.getRight().type;
+        switch (binary.getOperator().getType()) {
+            case EQ:
+            case NOT_EQ:
+                return false;
+            case PLUS:
+                return left == right && (left == IrType.REAL || left == IrType.CHAR);
+        }
+        return left == IrType.REAL && right == IrType.REAL;
+    }
+
+    private static void infer(IrFunction function) {
+        List<Instr> instrs = function.instrs();
+        for (Instr instr : instrs) {
+            if (instr instanceof Instr.Phi || instr instanceof Instr.Copy || instr instanceof Instr.Binary &&
+                    ((Instr.Binary)instr).getOperator().getType() == TokenType.PLUS) {
+                instr.type = null;
+            }
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Instr instr : instrs) {
+                IrType type = infer(instr);
+                if (type != instr.type) {
+                    instr.type = type;
+                    changed = true;
+                }
+            }
+        }
+        for (Instr instr : instrs) {
+            if (instr.type == null) {
+                instr.type = IrType.ANY;
+            }
+        }
+    }
+
+    private static IrType infer(Instr instr) {
+        if (instr instanceof Instr.Phi) {
+            IrType type = null;
+            for (Instr operand : instr.operands) {
+                if (operand.type != null) {
+                    type = operand.type.join(type);
+                }
+            }
+            return type;
+        }
+        if (instr instanceof Instr.Copy) {
+            return instr.getOperand(0).type;
+        }
+        if (instr instanceof Instr.Binary) {
+            Instr.Binary binary = (Instr.Binary)instr;
+            IrType left = binary.getLeft().type;
+            IrType right = binary.getRight().type;
+            if (binary.getOperator().getType() == TokenType.PLUS && (left == null || right == null)) {
+                return null;
+            }
+            return Instr.Binary.typeOf(binary.getOperator().getType(), left, right);
+        }
+        return instr.type;
+    }
+}
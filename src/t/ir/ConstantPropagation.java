@@ -0,0 +1,124 @@
+package t.ir;
+
+import t.Interpreter;
+import t.RuntimeError;
+import t.types.Bool;
+import t.types.Real;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+public class ConstantPropagation implements Pass {
+    private final Interpreter interpreter;
+
+    public ConstantPropagation(Interpreter interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        Map<Instr, Instr> replacements = new HashMap<>();
+        boolean changed = false;
+        for (Block block : function.blocks) {
+            Iterator<Instr.Phi> phis = block.phis.iterator();
+            while (phis.hasNext()) {
+                Instr.Phi phi = phis.next();
+                Instr.Const constant = same(phi, replacements);
+                if (constant != null) {
+                    replacements.put(phi, constant);
+                    phis.remove();
+                }
+            }
+            Iterator<Instr> instrs = block.instrs.iterator();
+            while (instrs.hasNext()) {
+                Instr instr = instrs.next();
+                instr.substitute(replacements);
+                Instr.Const constant = fold(function, instr);
+                if (constant != null) {
+                    replacements.put(instr, constant);
+                    instrs.remove();
+                }
+            }
+            if (block.terminator instanceof Instr.Branch) {
+                Instr.Branch branch = (Instr.Branch)block.terminator;
+                Instr condition = Instr.resolve(branch.getCondition(), replacements);
+                if (condition instanceof Instr.Const) {
+                    boolean truthy = interpreter.isTruthy(((Instr.Const)condition).getValue());
+                    Block taken = truthy ? branch.getThenBlock() : branch.getElseBlock();
+                    Block dropped = truthy ? branch.getElseBlock() : branch.getThenBlock();
+                    block.terminator = new Instr.Jump(taken);
+                    dropped.removePred(block);
+                    changed = true;
+                }
+            }
+        }
+        if (!replacements.isEmpty()) {
+            function.substitute(replacements);
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static Instr.Const same(Instr.Phi phi, Map<Instr, Instr> replacements) {
+        Instr.Const same = null;
+        for (Instr operand : phi.operands) {
+            operand = Instr.resolve(operand, replacements);
+            if (operand == phi) {
+                continue;
+            }
+            if (!(operand instanceof Instr.Const)) {
+                return null;
+            }
+            Instr.Const constant = (Instr.Const)operand;
+            if (same != null && !equal(same, constant)) {
+                return null;
+            }
+            same = constant;
+        }
+        return same;
+    }
+
+    private static boolean equal(Instr.Const left, Instr.Const right) {
+        Object a = left.getValue();
+        Object b = right.getValue();
+        if (a instanceof Real && b instanceof Real) {
+            return Double.doubleToLongBits(((Real)a).getValue()) == Double.doubleToLongBits(((Real)b).getValue());
+        }
+        return left == right || a instanceof Bool && a.equals(b);
+    }
+
+    private Instr.Const fold(IrFunction function, Instr instr) {
+        for (Instr operand : instr.operands) {
+            if (!(operand instanceof Instr.Const)) {
+                return null;
+            }
+        }
+        try {
+            if (instr instanceof Instr.Binary) {
+                Instr.Binary binary = (Instr.Binary)instr;
+                return function.constant(interpreter.binary(binary.getOperator(), value(binary.getLeft()),
+                        value(binary.getRight())));
+            }
+            if (instr instanceof Instr.Not) {
+                return function.constant(new Bool(!interpreter.isTruthy(value(instr.getOperand(0)))));
+            }
+            if (instr instanceof Instr.Negate) {
+                Instr.Negate negate = (Instr.Negate)instr;
+                return function.constant(interpreter.negate(negate.getOperator(), value(negate.getValue())));
+            }
+            if (instr instanceof Instr.Step) {
+                Instr.Step step = (Instr.Step)instr;
+                return function.constant(interpreter.step(step.getOperator(), value(step.getValue())));
+            }
+        }
+        catch (RuntimeError e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static Object value(Instr instr) {
+        return ((Instr.Const)instr).getValue();
+    }
+}
@@ -0,0 +1,57 @@
+package t.ir;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+public class CopyPropagation implements Pass {
+    @Override
+    public boolean run(IrFunction function) {
+        Map<Instr, Instr> replacements = new HashMap<>();
+        boolean found = true;
+        while (found) {
+            found = false;
+            for (Block block : function.blocks) {
+                Iterator<Instr> instrs = block.instrs.iterator();
+                while (instrs.hasNext()) {
+                    Instr instr = instrs.next();
+                    if (instr instanceof Instr.Copy) {
+                        replacements.put(instr, Instr.resolve(instr.getOperand(0), replacements));
+                        instrs.remove();
+                        found = true;
+                    }
+                }
+                Iterator<Instr.Phi> phis = block.phis.iterator();
+                while (phis.hasNext()) {
+                    Instr.Phi phi = phis.next();
+                    Instr same = same(phi, replacements);
+                    if (same != null) {
+                        replacements.put(phi, same);
+                        phis.remove();
+                        found = true;
+                    }
+                }
+            }
+        }
+        if (replacements.isEmpty()) {
+            return false;
+        }
+        function.substitute(replacements);
+        return true;
+    }
+
+    private static Instr same(Instr.Phi phi, Map<Instr, Instr> replacements) {
+        Instr same = null;
+        for (Instr operand : phi.operands) {
+            operand = Instr.resolve(operand, replacements);
+            if (operand == phi || operand == same) {
+                continue;
+            }
+            if (same != null) {
+                return null;
+            }
+            same = operand;
+        }
+        return same;
+    }
+}
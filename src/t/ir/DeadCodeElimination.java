@@ -0,0 +1,48 @@
+package t.ir;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+
+public class DeadCodeElimination implements Pass {
+    @Override
+    public boolean run(IrFunction function) {
+        boolean changed = false;
+        Set<Block> reachable = function.reachable();
+        Iterator<Block> blocks = function.blocks.iterator();
+        while (blocks.hasNext()) {
+            Block block = blocks.next();
+            if (!reachable.contains(block)) {
+                for (Block succ : block.successors()) {
+                    if (reachable.contains(succ)) {
+                        succ.removePred(block);
+                    }
+                }
+                blocks.remove();
+                changed = true;
+            }
+        }
+        Set<Instr> live = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Instr> work = new ArrayDeque<>();
+        for (Instr instr : function.instrs()) {
+            if (instr.hasEffects()) {
+                work.push(instr);
+            }
+        }
+        while (!work.isEmpty()) {
+            Instr instr = work.pop();
+            if (live.add(instr)) {
+                work.addAll(instr.operands);
+            }
+        }
+        for (Block block : function.blocks) {
+            changed |= block.phis.retainAll(live);
+            changed |= block.instrs.retainAll(live);
+        }
+        changed |= function.constants.retainAll(live);
+        return changed;
+    }
+}
@@ -0,0 +1,587 @@
+package t.ir;
+
+import t.Expr;
+import t.Stmt;
+import t.Token;
+import t.TokenType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public abstract class Instr {
+    public interface Visitor<T> {
+        T visitConst(Const instr);
+        T visitParam(Param instr);
+        T visitGlobal(Global instr);
+        T visitPhi(Phi instr);
+        T visitCopy(Copy instr);
+        T visitBinary(Binary instr);
+        T visitNot(Not instr);
+        T visitNegate(Negate instr);
+        T visitStep(Step instr);
+        T visitMember(Member instr);
+        T visitCallee(Callee instr);
+        T visitCheckArg(CheckArg instr);
+        T visitCall(Call instr);
+        T visitCheckType(CheckType instr);
+        T visitJump(Jump instr);
+        T visitBranch(Branch instr);
+        T visitReturn(Return instr);
+        T visitThrow(Throw instr);
+    }
+
+    final List<Instr> operands;
+    IrType type;
+    int id;
+
+    Instr(IrType type, Instr... operands) {
+        this.type = type;
+        this.operands = new ArrayList<>(Arrays.asList(operands));
+    }
+
+    public abstract <T> T accept(Visitor<T> visitor);
+
+    public List<Instr> getOperands() {
+        return operands;
+    }
+
+    public Instr getOperand(int index) {
+        return operands.get(index);
+    }
+
+    public IrType getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    boolean hasEffects() {
+        return false;
+    }
+
+    boolean substitute(Map<Instr, Instr> replacements) {
+        boolean changed = false;
+        for (int i = 0; i < operands.size(); i++) {
+            Instr replacement = resolve(operands.get(i), replacements);
+            if (replacement != operands.get(i)) {
+                operands.set(i, replacement);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    static Instr resolve(Instr instr, Map<Instr, Instr> replacements) {
+        Instr replacement = replacements.get(instr);
+        while (replacement != null) {
+            instr = replacement;
+            replacement = replacements.get(instr);
+        }
+        return instr;
+    }
+
+    public static class Const extends Instr {
+        private final Object value;
+
+        Const(Object value) {
+            super(IrType.of(value));
+            this.value = value;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitConst(this);
+        }
+    }
+
+    public static class Param extends Instr {
+        private final int index;
+        private final Token name;
+
+        Param(int index, Token name, IrType type) {
+            super(type);
+            this.index = index;
+            this.name = name;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Token getName() {
+            return name;
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitParam(this);
+        }
+    }
+
+    public static class Global extends Instr {
+        private final Token name;
+
+        Global(Token name) {
+            super(IrType.ANY);
+            this.name = name;
+        }
+
+        public Token getName() {
+            return name;
+        }
+
+        @Override
+        boolean hasEffects() {
+            return true;
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitGlobal(this);
+        }
+    }
+
+    public static class Phi extends Instr {
+        Phi() {
+            super(IrType.ANY);
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitPhi(this);
+        }
+    }
+
+    public static class Copy extends Instr {
+        private final Token name;
+
+        Copy(Token name, Instr value) {
+            super(value.type, value);
+            this.name = name;
+        }
+
+        public Token getName() {
+            return name;
+        }
+
+        public Instr getValue() {
+            return operands.get(0);
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitCopy(this);
+        }
+    }
+
+    public static class Binary extends Instr {
+        private final Token operator;
+        boolean checked = false;
+
+        Binary(Token operator, Instr left, Instr right) {
+            super(typeOf(operator.getType(), left.type, right.type), left, right);
+            this.operator = operator;
+        }
+
+        static IrType typeOf(TokenType operator, IrType left, IrType right) {
+            switch (operator) {
+                case MINUS:
+                case SLASH:
+                case STAR:
+                case MOD:
+                    return IrType.REAL;
+                case PLUS:
+                    return left == right && (left == IrType.REAL || left == IrType.CHAR) ? left : IrType.ANY;
+                case LESS:
+                case LESS_EQ:
+                case GREATER:
+                case GREATER_EQ:
+                case EQ:
+                case NOT_EQ:
+                    return IrType.BOOL;
+            }
+            return IrType.VOID;
+        }
+
+        public Token getOperator() {
+            return operator;
+        }
+
+        public Instr getLeft() {
+            return operands.get(0);
+        }
+
+        public Instr getRight() {
+            return operands.get(1);
+        }
+
+        public boolean isChecked() {
+            return checked;
+        }
+
+        @Override
+        boolean hasEffects() {
+            TokenType type = operator.getType();
+            return !checked && type != TokenType.EQ && type != TokenType.NOT_EQ;
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitBinary(this);
+        }
+    }
+
+    public static class Not extends Instr {
+        Not(Instr value) {
+            super(IrType.BOOL, value);
+        }
+
+        public Instr getValue() {
+            return operands.get(0);
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitNot(this);
+        }
+    }
+
+    public static class Negate extends Instr {
+        private final Token operator;
+        boolean checked = false;
+
+        Negate(Token operator, Instr value) {
+            super(IrType.REAL, value);
+            this.operator = operator;
+        }
+
+        public Token getOperator() {
+            return operator;
+        }
+
+        public Instr getValue() {
+            return operands.get(0);
+        }
+
+        public boolean isChecked() {
+            return checked;
+        }
+
+        @Override
+        boolean hasEffects() {
+            return !checked;
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitNegate(this);
+        }
+    }
+
+    public static class Step extends Instr {
+        private final Token operator;
+        boolean checked = false;
+
+        Step(Token operator, Instr value) {
+            super(IrType.REAL, value);
+            this.operator = operator;
+        }
+
+        public Token getOperator() {
+            return operator;
+        }
+
+        public Instr getValue() {
+            return operands.get(0);
+        }
+
+        public boolean isChecked() {
+            return checked;
+        }
+
+        @Override
+        boolean hasEffects() {
+            return !checked;
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitStep(this);
+        }
+    }
+
+    public static class Member extends Instr {
+        private final Expr.Get get;
+
+        Member(Expr.Get get, Instr object) {
+            super(IrType.ANY, object);
+            this.get = get;
+        }
+
+        public Expr.Get getGet() {
+            return get;
+        }
+
+        public Token getName() {
+            return get.getName();
+        }
+
+        public Instr getObject() {
+            return operands.get(0);
+        }
+
+        @Override
+        boolean hasEffects() {
+            return true;
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitMember(this);
+        }
+    }
+
+    public static class Callee extends Instr {
+        private final Token marker;
+        private final int arity;
+
+        Callee(Token marker, Instr callee, int arity) {
+            super(IrType.ANY, callee);
+            this.marker = marker;
+            this.arity = arity;
+        }
+
+        public Token getMarker() {
+            return marker;
+        }
+
+        public Instr getCallee() {
+            return operands.get(0);
+        }
+
+        public int getArity() {
+            return arity;
+        }
+
+        @Override
+        boolean hasEffects() {
+            return true;
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitCallee(this);
+        }
+    }
+
+    public static class CheckArg extends Instr {
+        private final int index;
+        private final Stmt.Function checkedCallee;
+
+        CheckArg(Instr callee, int index, Instr arg, Stmt.Function checkedCallee) {
+            super(IrType.VOID, callee, arg);
+            this.index = index;
+            this.checkedCallee = checkedCallee;
+        }
+
+        public Instr getCallee() {
+            return operands.get(0);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Instr getArg() {
+            return operands.get(1);
+        }
+
+        public Stmt.Function getCheckedCallee() {
+            return checkedCallee;
+        }
+
+        @Override
+        boolean hasEffects() {
+            return true;
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitCheckArg(this);
+        }
+    }
+
+    public static class Call extends Instr {
+        private final Token marker;
+
+        Call(Token marker, Instr callee, List<Instr> args) {
+            super(IrType.ANY, callee);
+            this.marker = marker;
+            operands.addAll(args);
+        }
+
+        public Token getMarker() {
+            return marker;
+        }
+
+        public Instr getCallee() {
+            return operands.get(0);
+        }
+
+        public List<Instr> getArgs() {
+            return operands.subList(1, operands.size());
+        }
+
+        @Override
+        boolean hasEffects() {
+            return true;
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitCall(this);
+        }
+    }
+
+    public static class CheckType extends Instr {
+        private final Token name;
+        private final String expected;
+
+        CheckType(Token name, String expected, Instr value) {
+            super(IrType.VOID, value);
+            this.name = name;
+            this.expected = expected;
+        }
+
+        public Token getName() {
+            return name;
+        }
+
+        public String getExpected() {
+            return expected;
+        }
+
+        public Instr getValue() {
+            return operands.get(0);
+        }
+
+        @Override
+        boolean hasEffects() {
+            return true;
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitCheckType(this);
+        }
+    }
+
+    public static abstract class Terminator extends Instr {
+        Terminator(Instr... operands) {
+            super(IrType.VOID, operands);
+        }
+
+        public List<Block> successors() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        boolean hasEffects() {
+            return true;
+        }
+    }
+
+    public static class Jump extends Terminator {
+        private final Block target;
+
+        Jump(Block target) {
+            this.target = target;
+        }
+
+        public Block getTarget() {
+            return target;
+        }
+
+        @Override
+        public List<Block> successors() {
+            return new ArrayList<>(Arrays.asList(target));
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitJump(this);
+        }
+    }
+
+    public static class Branch extends Terminator {
+        private final Block thenBlock;
+        private final Block elseBlock;
+        boolean checked = false;
+
+        Branch(Instr condition, Block thenBlock, Block elseBlock) {
+            super(condition);
+            this.thenBlock = thenBlock;
+            this.elseBlock = elseBlock;
+        }
+
+        public Instr getCondition() {
+            return operands.get(0);
+        }
+
+        public Block getThenBlock() {
+            return thenBlock;
+        }
+
+        public Block getElseBlock() {
+            return elseBlock;
+        }
+
+        public boolean isChecked() {
+            return checked;
+        }
+
+        @Override
+        public List<Block> successors() {
+            return new ArrayList<>(Arrays.asList(thenBlock, elseBlock));
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitBranch(this);
+        }
+    }
+
+    public static class Return extends Terminator {
+        Return(Instr value) {
+            super(value);
+        }
+
+        public Instr getValue() {
+            return operands.get(0);
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitReturn(this);
+        }
+    }
+
+    public static class Throw extends Terminator {
+        private final Token token;
+        private final String errorType;
+        private final String message;
+
+        Throw(Token token, String errorType, String message) {
+            this.token = token;
+            this.errorType = errorType;
+            this.message = message;
+        }
+
+        public Token getToken() {
+            return token;
+        }
+
+        public String getErrorType() {
+            return errorType;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitThrow(this);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package t.ir;
+
+import t.Interpreter;
+import t.Stmt;
+
+import java.util.List;
+
+public class IrCompiler {
+    private final Interpreter interpreter;
+    private final PassManager passes;
+    private final boolean dump;
+
+    public IrCompiler(Interpreter interpreter, boolean dump) {
+        this.interpreter = interpreter;
+        this.passes = PassManager.standard(interpreter);
+        this.dump = dump;
+    }
+
+    public void compileStmts(List<Stmt> stmts) {
+        for (Stmt stmt : stmts) {
+            if (stmt instanceof Stmt.Function) {
+                compile((Stmt.Function)stmt);
+            }
+            else if (stmt instanceof Stmt.Namespace) {
+                compileStmts(((Stmt.Namespace)stmt).getBody());
+            }
+        }
+    }
+
+    private void compile(Stmt.Function declaration) {
+        declaration.whenParsed(body -> {
+            IrFunction function = new Lowering(interpreter, declaration).lower(body);
+            if (function == null) {
+                return;
+            }
+            passes.run(function);
+            if (dump) {
+                System.out.print(new IrPrinter().print(function));
+            }
+            declaration.setCompiled(new IrInterpreter(function));
+        });
+        if (dump) {
+            declaration.getBody();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package t.ir;
+
+import t.Stmt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class IrFunction {
+    private final Stmt.Function declaration;
+    final List<Instr.Param> params = new ArrayList<>();
+    final List<Instr.Const> constants = new ArrayList<>();
+    final List<Block> blocks = new ArrayList<>();
+    private int size;
+
+    IrFunction(Stmt.Function declaration) {
+        this.declaration = declaration;
+    }
+
+    public Stmt.Function getDeclaration() {
+        return declaration;
+    }
+
+    public List<Instr.Param> getParams() {
+        return params;
+    }
+
+    public List<Instr.Const> getConstants() {
+        return constants;
+    }
+
+    public List<Block> getBlocks() {
+        return blocks;
+    }
+
+    public Block getEntry() {
+        return blocks.get(0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    Block newBlock() {
+        Block block = new Block(blocks.size());
+        blocks.add(block);
+        return block;
+    }
+
+    Instr.Const constant(Object value) {
+        Instr.Const constant = new Instr.Const(value);
+        constants.add(constant);
+        return constant;
+    }
+
+    Set<Block> reachable() {
+        Set<Block> reached = new LinkedHashSet<>();
+        Deque<Block> work = new ArrayDeque<>();
+        work.push(getEntry());
+        while (!work.isEmpty()) {
+            Block block = work.pop();
+            if (reached.add(block)) {
+                for (Block succ : block.successors()) {
+                    work.push(succ);
+                }
+            }
+        }
+        return reached;
+    }
+
+    List<Instr> instrs() {
+        List<Instr> instrs = new ArrayList<>();
+        for (Block block : blocks) {
+            instrs.addAll(block.phis);
+            instrs.addAll(block.instrs);
+            if (block.terminator != null) {
+                instrs.add(block.terminator);
+            }
+        }
+        return instrs;
+    }
+
+    boolean substitute(Map<Instr, Instr> replacements) {
+        boolean changed = false;
+        for (Instr instr : instrs()) {
+            changed |= instr.substitute(replacements);
+        }
+        return changed;
+    }
+
+    void number() {
+        int id = 0;
+        for (Instr.Param param : params) {
+            param.id = id++;
+        }
+        for (Instr.Const constant : constants) {
+            constant.id = id++;
+        }
+        for (Instr instr : instrs()) {
+            instr.id = id++;
+        }
+        size = id;
+    }
+}
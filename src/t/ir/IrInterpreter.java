@@ -0,0 +1,221 @@
+package t.ir;
+
+import t.Compiled;
+import t.Interpreter;
+import t.RuntimeError;
+import t.types.Bool;
+import t.types.Callable;
+import t.types.Char;
+import t.types.Real;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IrInterpreter implements Compiled {
+    private final IrFunction function;
+    private final Object[] constants;
+
+    public IrInterpreter(IrFunction function) {
+        this.function = function;
+        this.constants = new Object[function.size()];
+        for (Instr.Const constant : function.constants) {
+            constants[constant.id] = constant.getValue();
+        }
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> args) {
+        Object[] registers = constants.clone();
+        for (Instr.Param param : function.params) {
+            registers[param.id] = args.get(param.getIndex());
+        }
+        return new Activation(interpreter, registers).run(function.getEntry());
+    }
+
+    private static class Activation implements Instr.Visitor<Object> {
+        private final Interpreter interpreter;
+        private final Object[] registers;
+
+        Activation(Interpreter interpreter, Object[] registers) {
+            this.interpreter = interpreter;
+            this.registers = registers;
+        }
+
+        private Object get(Instr instr) {
+            return registers[instr.id];
+        }
+
+        Object run(Block block) {
+            Block from = null;
+            while (true) {
+                if (from != null && !block.phis.isEmpty()) {
+                    enter(block, from);
+                }
+                List<Instr> instrs = block.instrs;
+                for (int i = 0; i < instrs.size(); i++) {
+                    Instr instr = instrs.get(i);
+                    registers[instr.id] = instr.accept(this);
+                }
+                Instr.Terminator terminator = block.terminator;
+                from = block;
+                if (terminator instanceof Instr.Jump) {
+                    block = ((Instr.Jump)terminator).getTarget();
+                }
+                else if (terminator instanceof Instr.Branch) {
+                    Instr.Branch branch = (Instr.Branch)terminator;
+                    Object condition = get(branch.getCondition());
+                    boolean truthy = branch.isChecked() ? ((Bool)condition).getValue() : interpreter.isTruthy(condition);
+                    block = truthy ? branch.getThenBlock() : branch.getElseBlock();
+                }
+                else if (terminator instanceof Instr.Return) {
+                    return get(((Instr.Return)terminator).getValue());
+                }
+                else {
+                    Instr.Throw error = (Instr.Throw)terminator;
+                    throw new RuntimeError(error.getToken(), error.getErrorType(), error.getMessage());
+                }
+            }
+        }
+
+        private void enter(Block block, Block from) {
+            int index = block.preds.indexOf(from);
+            List<Instr.Phi> phis = block.phis;
+            Object[] values = new Object[phis.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = get(phis.get(i).operands.get(index));
+            }
+            for (int i = 0; i < values.length; i++) {
+                registers[phis.get(i).id] = values[i];
+            }
+        }
+
+        @Override
+        public Object visitConst(Instr.Const instr) {
+            return instr.getValue();
+        }
+
+        @Override
+        public Object visitParam(Instr.Param instr) {
+            return get(instr);
+        }
+
+        @Override
+        public Object visitGlobal(Instr.Global instr) {
+            return interpreter.global(instr.getName());
+        }
+
+        @Override
+        public Object visitPhi(Instr.Phi instr) {
+            return get(instr);
+        }
+
+        @Override
+        public Object visitCopy(Instr.Copy instr) {
+            return get(instr.getValue());
+        }
+
+        @Override
+        public Object visitBinary(Instr.Binary instr) {
+            Object left = get(instr.getLeft());
+            Object right = get(instr.getRight());
+            if (!instr.isChecked()) {
+                return interpreter.binary(instr.getOperator(), left, right);
+            }
+            switch (instr.getOperator().getType()) {
+                case MINUS: return Real.subtract((Real)left, (Real)right);
+                case SLASH: return Real.divide((Real)left, (Real)right);
+                case STAR: return Real.multiply((Real)left, (Real)right);
+                case MOD: return Real.mod((Real)left, (Real)right);
+                case LESS: return Real.less((Real)left, (Real)right);
+                case LESS_EQ: return Real.lessEq((Real)left, (Real)right);
+                case GREATER: return Real.greater((Real)left, (Real)right);
+                case GREATER_EQ: return Real.greaterEq((Real)left, (Real)right);
+                case PLUS: {
+                    if (left instanceof Real) {
+                        return Real.add((Real)left, (Real)right);
+                    }
+                    return Char.concat((Char)left, (Char)right);
+                }
+            }
+            return interpreter.binary(instr.getOperator(), left, right);
+        }
+
+        @Override
+        public Object visitNot(Instr.Not instr) {
+            return new Bool(!interpreter.isTruthy(get(instr.getValue())));
+        }
+
+        @Override
+        public Object visitNegate(Instr.Negate instr) {
+            Object value = get(instr.getValue());
+            if (instr.isChecked()) {
+                return new Real(-((Real)value).getValue());
+            }
+            return interpreter.negate(instr.getOperator(), value);
+        }
+
+        @Override
+        public Object visitStep(Instr.Step instr) {
+            return interpreter.step(instr.getOperator(), get(instr.getValue()));
+        }
+
+        @Override
+        public Object visitMember(Instr.Member instr) {
+            return interpreter.member(instr.getGet(), get(instr.getObject()));
+        }
+
+        @Override
+        public Object visitCallee(Instr.Callee instr) {
+            return interpreter.callable(instr.getMarker(), get(instr.getCallee()), instr.getArity());
+        }
+
+        @Override
+        public Object visitCheckArg(Instr.CheckArg instr) {
+            Callable callable = (Callable)get(instr.getCallee());
+            if (!interpreter.isChecked(instr.getCheckedCallee(), callable)) {
+                interpreter.checkArg(callable, callable.getParams().get(instr.getIndex()), get(instr.getArg()));
+            }
+            return null;
+        }
+
+        @Override
+        public Object visitCall(Instr.Call instr) {
+            List<Instr> operands = instr.getArgs();
+            List<Object> args = new ArrayList<>(operands.size());
+            for (Instr operand : operands) {
+                args.add(get(operand));
+            }
+            return interpreter.invoke(instr.getMarker(), (Callable)get(instr.getCallee()), args);
+        }
+
+        @Override
+        public Object visitCheckType(Instr.CheckType instr) {
+            Object value = get(instr.getValue());
+            String type = interpreter.typeOf(value);
+            if (!type.equals(instr.getExpected())) {
+                throw interpreter.typeError(instr.getName(), instr.getExpected(), type);
+            }
+            return null;
+        }
+
+        @Override
+        public Object visitJump(Instr.Jump instr) {
+            return null;
+        }
+
+        @Override
+        public Object visitBranch(Instr.Branch instr) {
+            return null;
+        }
+
+        @Override
+        public Object visitReturn(Instr.Return instr) {
+            return null;
+        }
+
+        @Override
+        public Object visitThrow(Instr.Throw instr) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package t.ir;
+
+import t.types.Char;
+
+import java.util.List;
+
+public class IrPrinter implements Instr.Visitor<String> {
+    private final StringBuilder sb = new StringBuilder();
+
+    public String print(IrFunction function) {
+        StringBuilder header = new StringBuilder("fn ").append(function.getDeclaration().getName().getLexeme())
+                .append('(');
+        for (int i = 0; i < function.params.size(); i++) {
+            Instr.Param param = function.params.get(i);
+            if (i > 0) {
+                header.append(", ");
+            }
+            header.append(name(param)).append(' ').append(param.getName().getLexeme())
+                    .append(": ").append(param.getType().getName());
+        }
+        sb.append(header).append(") -> ").append(function.getDeclaration().getType().getLexeme()).append('\n');
+        for (Block block : function.blocks) {
+            sb.append('b').append(block.id).append(':');
+            if (!block.preds.isEmpty()) {
+                sb.append(" ; preds");
+                for (Block pred : block.preds) {
+                    sb.append(" b").append(pred.id);
+                }
+            }
+            sb.append('\n');
+            for (Instr.Phi phi : block.phis) {
+                line(phi);
+            }
+            for (Instr instr : block.instrs) {
+                line(instr);
+            }
+            line(block.terminator);
+        }
+        return sb.toString();
+    }
+
+    private void line(Instr instr) {
+        sb.append("    ");
+        if (instr.type != IrType.VOID) {
+            sb.append(name(instr)).append(" = ");
+        }
+        sb.append(instr.accept(this));
+        if (instr.type != IrType.VOID) {
+            sb.append(" : ").append(instr.type.getName());
+        }
+        sb.append('\n');
+    }
+
+    private static String name(Instr instr) {
+        if (instr instanceof Instr.Const) {
+            Object value = ((Instr.Const)instr).getValue();
+            if (value == null) {
+                return "nil";
+            }
+            return value instanceof Char ? "'" + value + "'" : value.toString();
+        }
+        return "%" + instr.id;
+    }
+
+    private static String operands(String op, List<Instr> operands) {
+        StringBuilder builder = new StringBuilder(op);
+        for (int i = 0; i < operands.size(); i++) {
+            builder.append(i == 0 ? " " : ", ").append(name(operands.get(i)));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String visitConst(Instr.Const instr) {
+        return "const " + name(instr);
+    }
+
+    @Override
+    public String visitParam(Instr.Param instr) {
+        return "param " + instr.getIndex();
+    }
+
+    @Override
+    public String visitGlobal(Instr.Global instr) {
+        return "global " + instr.getName().getLexeme();
+    }
+
+    @Override
+    public String visitPhi(Instr.Phi instr) {
+        return operands("phi", instr.operands);
+    }
+
+    @Override
+    public String visitCopy(Instr.Copy instr) {
+        return operands("copy", instr.operands) + " ; " + instr.getName().getLexeme();
+    }
+
+    @Override
+    public String visitBinary(Instr.Binary instr) {
+        return operands(instr.getOperator().getLexeme() + (instr.hasEffects() ? "?" : ""), instr.operands);
+    }
+
+    @Override
+    public String visitNot(Instr.Not instr) {
+        return operands("not", instr.operands);
+    }
+
+    @Override
+    public String visitNegate(Instr.Negate instr) {
+        return operands(instr.isChecked() ? "neg" : "neg?", instr.operands);
+    }
+
+    @Override
+    public String visitStep(Instr.Step instr) {
+        return operands(instr.getOperator().getLexeme() + (instr.isChecked() ? "" : "?"), instr.operands);
+    }
+
+    @Override
+    public String visitMember(Instr.Member instr) {
+        return operands("get", instr.operands) + "." + instr.getName().getLexeme();
+    }
+
+    @Override
+    public String visitCallee(Instr.Callee instr) {
+        return operands("callee", instr.operands) + " / " + instr.getArity();
+    }
+
+    @Override
+    public String visitCheckArg(Instr.CheckArg instr) {
+        return "checkarg " + name(instr.getCallee()) + "[" + instr.getIndex() + "], " + name(instr.getArg());
+    }
+
+    @Override
+    public String visitCall(Instr.Call instr) {
+        return operands("call", instr.operands);
+    }
+
+    @Override
+    public String visitCheckType(Instr.CheckType instr) {
+        return operands("checktype", instr.operands) + " " + instr.getExpected();
+    }
+
+    @Override
+    public String visitJump(Instr.Jump instr) {
+        return "jump b" + instr.getTarget().id;
+    }
+
+    @Override
+    public String visitBranch(Instr.Branch instr) {
+        return operands(instr.isChecked() ? "branch" : "branch?", instr.operands) + ", b" +
+                instr.getThenBlock().id + ", b" + instr.getElseBlock().id;
+    }
+
+    @Override
+    public String visitReturn(Instr.Return instr) {
+        return operands("return", instr.operands);
+    }
+
+    @Override
+    public String visitThrow(Instr.Throw instr) {
+        return "throw " + instr.getErrorType() + " " + instr.getMessage();
+    }
+}
@@ -0,0 +1,49 @@
+package t.ir;
+
+import t.types.Bool;
+import t.types.Char;
+import t.types.Real;
+
+public enum IrType {
+    REAL("real"), BOOL("bool"), CHAR("char"), VOID("void"), ANY("free");
+
+    private final String name;
+
+    IrType(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static IrType of(String name) {
+        for (IrType type : values()) {
+            if (type.name.equals(name)) {
+                return type;
+            }
+        }
+        return ANY;
+    }
+
+    public static IrType of(Object value) {
+        if (value instanceof Real) {
+            return REAL;
+        }
+        if (value instanceof Bool) {
+            return BOOL;
+        }
+        if (value instanceof Char) {
+            return CHAR;
+        }
+        return value == null ? VOID : ANY;
+    }
+
+    public IrType join(IrType other) {
+        return other == null || other == this ? this : ANY;
+    }
+
+    public boolean satisfies(String declared) {
+        return declared.equals("free") || this != ANY && name.equals(declared);
+    }
+}
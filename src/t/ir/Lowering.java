@@ -0,0 +1,412 @@
+package t.ir;
+
+import t.Expr;
+import t.Interpreter;
+import t.Stmt;
+import t.Token;
+import t.TokenType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static t.TokenType.*;
+
+public class Lowering {
+    private final Interpreter interpreter;
+    private final IrFunction function;
+    private final List<Map<String, Local>> scopes = new ArrayList<>();
+    private final Map<Local, Map<Block, Instr>> defs = new HashMap<>();
+    private final Map<Block, Map<Local, Instr.Phi>> incomplete = new HashMap<>();
+    private final Set<Block> sealed = new HashSet<>();
+    private Block current;
+
+    private static class Local {
+        private final String type;
+
+        Local(String type) {
+            this.type = type;
+        }
+    }
+
+    private static class Unsupported extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    public Lowering(Interpreter interpreter, Stmt.Function declaration) {
+        this.interpreter = interpreter;
+        this.function = new IrFunction(declaration);
+    }
+
+    public IrFunction lower(List<Stmt> body) {
+        Stmt.Function declaration = function.getDeclaration();
+        if (declaration.isMethod() || declaration.getType().getType() == CONS || declaration.getCaptures() != null) {
+            return null;
+        }
+        current = function.newBlock();
+        seal(current);
+        scopes.add(new HashMap<>());
+        try {
+            List<Expr.Param> params = declaration.getParams();
+            for (int i = 0; i < params.size(); i++) {
+                Expr.Param param = params.get(i);
+                if (param.isBoxed()) {
+                    throw new Unsupported();
+                }
+                String type = param.getType().getLexeme();
+                Instr.Param value = new Instr.Param(i, param.getName(), IrType.of(type));
+                function.params.add(value);
+                declare(param.getName(), type, value);
+            }
+            lowerStmts(body);
+            terminate(new Instr.Return(function.constant(null)));
+        }
+        catch (Unsupported e) {
+            return null;
+        }
+        return function;
+    }
+
+    private Instr emit(Instr instr) {
+        current.instrs.add(instr);
+        return instr;
+    }
+
+    private void terminate(Instr.Terminator terminator) {
+        current.terminator = terminator;
+        for (Block succ : terminator.successors()) {
+            succ.preds.add(current);
+        }
+    }
+
+    private void jump(Block target) {
+        terminate(new Instr.Jump(target));
+    }
+
+    private void unreachable() {
+        current = function.newBlock();
+        seal(current);
+    }
+
+    //===============================Variables=================================
+
+    private void declare(Token name, String type, Instr value) {
+        Local local = new Local(type);
+        scopes.get(scopes.size() - 1).put(name.getLexeme(), local);
+        assign(local, name, value);
+    }
+
+    private void assign(Local local, Token name, Instr value) {
+        write(local, current, value instanceof Instr.Param ? value : emit(new Instr.Copy(name, value)));
+    }
+
+    private Local lookup(Expr expr, Token name) {
+        Integer distance = interpreter.distanceOf(expr);
+        if (distance == null) {
+            return null;
+        }
+        int index = scopes.size() - 1 - distance;
+        Local local = index < 0 ? null : scopes.get(index).get(name.getLexeme());
+        if (local == null) {
+            throw new Unsupported();
+        }
+        return local;
+    }
+
+    private void check(Token name, String type, Instr value) {
+        if (!type.equals("free")) {
+            emit(new Instr.CheckType(name, type, value));
+        }
+    }
+
+    private void write(Local local, Block block, Instr value) {
+        defs.computeIfAbsent(local, k -> new HashMap<>()).put(block, value);
+    }
+
+    private Instr read(Local local, Block block) {
+        Instr value = defs.get(local).get(block);
+        if (value != null) {
+            return value;
+        }
+        if (!sealed.contains(block)) {
+            Instr.Phi phi = phi(block);
+            incomplete.computeIfAbsent(block, k -> new HashMap<>()).put(local, phi);
+            value = phi;
+        }
+        else if (block.preds.isEmpty()) {
+            value = function.constant(null);
+        }
+        else if (block.preds.size() == 1) {
+            value = read(local, block.preds.get(0));
+        }
+        else {
+            Instr.Phi phi = phi(block);
+            write(local, block, phi);
+            addOperands(local, phi, block);
+            value = phi;
+        }
+        write(local, block, value);
+        return value;
+    }
+
+    private Instr.Phi phi(Block block) {
+        Instr.Phi phi = new Instr.Phi();
+        block.phis.add(phi);
+        return phi;
+    }
+
+    private void addOperands(Local local, Instr.Phi phi, Block block) {
+        for (Block pred : block.preds) {
+            phi.operands.add(read(local, pred));
+        }
+    }
+
+    private void seal(Block block) {
+        Map<Local, Instr.Phi> phis = incomplete.remove(block);
+        if (phis != null) {
+            for (Map.Entry<Local, Instr.Phi> phi : phis.entrySet()) {
+                addOperands(phi.getKey(), phi.getValue(), block);
+            }
+        }
+        sealed.add(block);
+    }
+
+    //=================================Stmt====================================
+
+    private void lowerStmts(List<Stmt> stmts) {
+        for (Stmt stmt : stmts) {
+            lower(stmt);
+        }
+    }
+
+    private void lower(Stmt stmt) {
+        if (stmt instanceof Stmt.Expression) {
+            Expr expr = ((Stmt.Expression)stmt).getExpr();
+            if (expr instanceof Expr.Return) {
+                Expr value = ((Expr.Return)expr).getExpr();
+                if (value == null) {
+                    throw new Unsupported();
+                }
+                terminate(new Instr.Return(lower(value)));
+                unreachable();
+            }
+            else {
+                lower(expr);
+            }
+        }
+        else if (stmt instanceof Stmt.Block) {
+            scopes.add(new HashMap<>());
+            lowerStmts(((Stmt.Block)stmt).getBody());
+            scopes.remove(scopes.size() - 1);
+        }
+        else if (stmt instanceof Stmt.If) {
+            Stmt.If ifStmt = (Stmt.If)stmt;
+            Instr condition = lower(ifStmt.getCondition());
+            Block thenBlock = function.newBlock();
+            Block elseBlock = ifStmt.getElseBlock() == null ? null : function.newBlock();
+            Block join = function.newBlock();
+            terminate(new Instr.Branch(condition, thenBlock, elseBlock == null ? join : elseBlock));
+            seal(thenBlock);
+            current = thenBlock;
+            lower(ifStmt.getThenBlock());
+            jump(join);
+            if (elseBlock != null) {
+                seal(elseBlock);
+                current = elseBlock;
+                lower(ifStmt.getElseBlock());
+                jump(join);
+            }
+            seal(join);
+            current = join;
+        }
+        else if (stmt instanceof Stmt.While) {
+            Stmt.While whileStmt = (Stmt.While)stmt;
+            loop(whileStmt.getCondition(), whileStmt.getBody(), null);
+        }
+        else if (stmt instanceof Stmt.For) {
+            Stmt.For forStmt = (Stmt.For)stmt;
+            lower(forStmt.getInitializer());
+            loop(forStmt.getCondition(), forStmt.getBody(), forStmt.getIncrement());
+        }
+        else if (stmt instanceof Stmt.Error) {
+            Stmt.Error error = (Stmt.Error)stmt;
+            terminate(new Instr.Throw(error.getToken(), error.getType().getLexeme(), error.getMessage().getLexeme()));
+            unreachable();
+        }
+        else {
+            throw new Unsupported();
+        }
+    }
+
+    private void loop(Expr condition, Stmt body, Expr increment) {
+        Block header = function.newBlock();
+        jump(header);
+        current = header;
+        Instr value = lower(condition);
+        Block bodyBlock = function.newBlock();
+        Block exit = function.newBlock();
+        terminate(new Instr.Branch(value, bodyBlock, exit));
+        seal(bodyBlock);
+        current = bodyBlock;
+        lower(body);
+        if (increment != null) {
+            lower(increment);
+        }
+        jump(header);
+        seal(header);
+        seal(exit);
+        current = exit;
+    }
+
+    //=================================Expr====================================
+
+    private Instr lower(Expr expr) {
+        if (expr instanceof Expr.Literal) {
+            return function.constant(((Expr.Literal)expr).getValue());
+        }
+        if (expr instanceof Expr.Grouping) {
+            return lower(((Expr.Grouping)expr).getExpr());
+        }
+        if (expr instanceof Expr.Var) {
+            Expr.Var var = (Expr.Var)expr;
+            Local local = lookup(var, var.getName());
+            return local == null ? emit(new Instr.Global(var.getName())) : read(local, current);
+        }
+        if (expr instanceof Expr.Declaration) {
+            Expr.Declaration declaration = (Expr.Declaration)expr;
+            if (declaration.isBoxed()) {
+                throw new Unsupported();
+            }
+            String type = declaration.getType().getLexeme();
+            Instr value = function.constant(null);
+            if (declaration.getValue() != null) {
+                value = lower(declaration.getValue());
+                if (!declaration.isTypeChecked()) {
+                    check(declaration.getName(), type, value);
+                }
+            }
+            declare(declaration.getName(), type, value);
+            return function.constant(null);
+        }
+        if (expr instanceof Expr.Assign) {
+            Expr.Assign assign = (Expr.Assign)expr;
+            if (!(assign.getTarget() instanceof Expr.Var)) {
+                throw new Unsupported();
+            }
+            Expr.Var target = (Expr.Var)assign.getTarget();
+            Local local = lookup(interpreter.distanceOf(assign) != null ? assign : target, target.getName());
+            if (local == null) {
+                throw new Unsupported();
+            }
+            Instr value = lower(assign.getValue());
+            if (!assign.isTypeChecked()) {
+                check(target.getName(), local.type, value);
+            }
+            assign(local, target.getName(), value);
+            return function.constant(null);
+        }
+        if (expr instanceof Expr.Binary) {
+            Expr.Binary binary = (Expr.Binary)expr;
+            Instr left = lower(binary.getLeft());
+            Instr right = lower(binary.getRight());
+            return emit(new Instr.Binary(binary.getOperator(), left, right));
+        }
+        if (expr instanceof Expr.Unary) {
+            return lowerUnary((Expr.Unary)expr);
+        }
+        if (expr instanceof Expr.Logical) {
+            return lowerLogical((Expr.Logical)expr);
+        }
+        if (expr instanceof Expr.Call) {
+            return lowerCall((Expr.Call)expr);
+        }
+        if (expr instanceof Expr.Get) {
+            Expr.Get get = (Expr.Get)expr;
+            return emit(new Instr.Member(get, lower(get.getExpr())));
+        }
+        if (expr instanceof Expr.Inline) {
+            return lower(((Expr.Inline)expr).getCall());
+        }
+        if (expr instanceof Expr.Cached) {
+            return lowerCached((Expr.Cached)expr);
+        }
+        throw new Unsupported();
+    }
+
+    private Instr lowerUnary(Expr.Unary unary) {
+        TokenType type = unary.getOperator().getType();
+        if (type == NOT) {
+            return emit(new Instr.Not(lower(unary.getExpr())));
+        }
+        if (type == MINUS) {
+            return emit(new Instr.Negate(unary.getOperator(), lower(unary.getExpr())));
+        }
+        if ((type == INCR || type == DECR) && unary.getExpr() instanceof Expr.Var) {
+            Expr.Var var = (Expr.Var)unary.getExpr();
+            Local local = lookup(var, var.getName());
+            if (local == null) {
+                throw new Unsupported();
+            }
+            Instr value = emit(new Instr.Step(unary.getOperator(), read(local, current)));
+            check(var.getName(), local.type, value);
+            assign(local, var.getName(), value);
+            return function.constant(null);
+        }
+        throw new Unsupported();
+    }
+
+    private Instr lowerLogical(Expr.Logical logical) {
+        Instr left = lower(logical.getLeft());
+        Block from = current;
+        Block rightBlock = function.newBlock();
+        Block join = function.newBlock();
+        if (logical.getOperator().getType() == OR) {
+            terminate(new Instr.Branch(left, join, rightBlock));
+        }
+        else {
+            terminate(new Instr.Branch(left, rightBlock, join));
+        }
+        seal(rightBlock);
+        current = rightBlock;
+        Instr right = lower(logical.getRight());
+        jump(join);
+        seal(join);
+        current = join;
+        Instr.Phi phi = phi(join);
+        for (Block pred : join.preds) {
+            phi.operands.add(pred == from ? left : right);
+        }
+        return phi;
+    }
+
+    private Instr lowerCall(Expr.Call call) {
+        Instr callee = lower(call.getCallee());
+        callee = emit(new Instr.Callee(call.getMarker(), callee, call.getArgs().size()));
+        List<Instr> args = new ArrayList<>();
+        for (int i = 0; i < call.getArgs().size(); i++) {
+            Instr arg = lower(call.getArgs().get(i));
+            emit(new Instr.CheckArg(callee, i, arg, call.getCheckedCallee()));
+            args.add(arg);
+        }
+        return emit(new Instr.Call(call.getMarker(), callee, args));
+    }
+
+    private Instr lowerCached(Expr.Cached cached) {
+        if (cached.isFresh()) {
+            Instr value = lower(cached.getExpr());
+            declare(cached.getSlot(), "free", value);
+            return value;
+        }
+        Integer distance = interpreter.distanceOf(cached);
+        int index = distance == null ? -1 : scopes.size() - 1 - distance;
+        Local local = index < 0 ? null : scopes.get(index).get(cached.getSlot().getLexeme());
+        return local == null ? lower(cached.getExpr()) : read(local, current);
+    }
+}
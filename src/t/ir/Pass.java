@@ -0,0 +1,5 @@
+package t.ir;
+
+public interface Pass {
+    boolean run(IrFunction function);
+}
@@ -0,0 +1,35 @@
+package t.ir;
+
+import t.Interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PassManager {
+    private static final int MAX_ROUNDS = 8;
+    private final List<Pass> passes = new ArrayList<>();
+
+    public PassManager add(Pass pass) {
+        passes.add(pass);
+        return this;
+    }
+
+    public static PassManager standard(Interpreter interpreter) {
+        return new PassManager()
+                .add(new CopyPropagation())
+                .add(new ConstantPropagation(interpreter))
+                .add(new CheckElimination())
+                .add(new DeadCodeElimination());
+    }
+
+    public void run(IrFunction function) {
+        boolean changed = true;
+        for (int round = 0; changed && round < MAX_ROUNDS; round++) {
+            changed = false;
+            for (Pass pass : passes) {
+                changed |= pass.run(function);
+            }
+        }
+        function.number();
+    }
+}
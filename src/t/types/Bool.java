@@ -24,4 +24,9 @@ public class Bool {
         }
         return false;
     }
+
+    @Override
+    public int hashCode() {
+        return Boolean.hashCode(value);
+    }
 }
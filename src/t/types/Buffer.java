@@ -0,0 +1,154 @@
+package t.types;
+
+import t.RuntimeError;
+import t.Token;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import static t.TokenType.*;
+import static t.types.Methods.param;
+
+public class Buffer {
+    private static final Methods<Buffer> methods = new Methods<>();
+    private ByteBuffer data;
+    private final int length;
+
+    private Function[] bound;
+
+    static {
+        methods.add(REAL, "real", "get", (buffer, interpreter, token, args) ->
+                buffer.get(token, buffer.index(token, args.get(0), buffer.length)), param(REAL, "real", "index"));
+        methods.add(VOID, "void", "set", (buffer, interpreter, token, args) -> {
+            buffer.set(token, buffer.index(token, args.get(0), buffer.length), args.get(1));
+            return null;
+        }, param(REAL, "real", "index"), param(REAL, "real", "value"));
+        methods.add(VOID, "void", "fill", (buffer, interpreter, token, args) -> {
+            buffer.fill(token, buffer.real(args.get(0)));
+            return null;
+        }, param(REAL, "real", "value"));
+        methods.add(VOID, "void", "copy", (buffer, interpreter, token, args) -> {
+            buffer.copy(token, (Buffer)args.get(0), integer(token, buffer.real(args.get(1))),
+                    integer(token, buffer.real(args.get(2))), integer(token, buffer.real(args.get(3))));
+            return null;
+        }, param(ID, "buffer", "source"), param(REAL, "real", "from"), param(REAL, "real", "to"),
+                param(REAL, "real", "count"));
+        methods.add(REAL, "real", "len", (buffer, interpreter, token, args) -> new Real(buffer.length));
+        methods.add(VOID, "void", "close", (buffer, interpreter, token, args) -> {
+            buffer.close();
+            return null;
+        });
+    }
+
+    private Buffer(ByteBuffer data) {
+        this.data = data.order(ByteOrder.nativeOrder());
+        this.length = data.capacity() / Double.BYTES;
+    }
+
+    public static Buffer allocate(Token token, int length) {
+        if (length < 0 || length > Integer.MAX_VALUE / Double.BYTES) {
+            throw new RuntimeError(token, "BufferError", "Cannot allocate a buffer of " + length + " reals.");
+        }
+        return new Buffer(ByteBuffer.allocateDirect(length * Double.BYTES));
+    }
+
+    public static Buffer map(Token token, String path, int length) {
+        if (length < 0 || length > Integer.MAX_VALUE / Double.BYTES) {
+            throw new RuntimeError(token, "BufferError", "Cannot map a buffer of " + length + " reals.");
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Buffer(channel.map(FileChannel.MapMode.READ_WRITE, 0, (long)length * Double.BYTES));
+        }
+        catch (IOException e) {
+            throw new RuntimeError(token, "FileError", "Cannot map file '" + path + "'.");
+        }
+    }
+
+    public static int integer(Token token, double value) {
+        long rounded = Math.round(value);
+        if (rounded < Integer.MIN_VALUE || rounded > Integer.MAX_VALUE) {
+            throw new RuntimeError(token, "BoundsError", "Value " + new Real(value) + " out of range.");
+        }
+        return (int)rounded;
+    }
+
+    private ByteBuffer data(Token token) {
+        if (data == null) {
+            throw new RuntimeError(token, "BufferError", "Buffer is closed.");
+        }
+        return data;
+    }
+
+    public int size() {
+        return length;
+    }
+
+    public int index(Token token, Object index, int limit) {
+        if (!(index instanceof Real)) {
+            throw new RuntimeError(token, "SliceError", "Can only index buffers at real indices.");
+        }
+        int i = integer(token, ((Real)index).getValue());
+        if (i < 0 || i >= limit) {
+            throw new RuntimeError(token, "BoundsError", "Index " + i + " out of bounds.");
+        }
+        return i;
+    }
+
+    public Real get(Token token, int index) {
+        return new Real(data(token).getDouble(index * Double.BYTES));
+    }
+
+    public void set(Token token, int index, Object value) {
+        if (!(value instanceof Real)) {
+            throw new RuntimeError(token, "TypeError", "Buffers can only hold reals.");
+        }
+        data(token).putDouble(index * Double.BYTES, ((Real)value).getValue());
+    }
+
+    public void fill(Token token, double value) {
+        ByteBuffer data = data(token);
+        for (int i = 0; i < length; i++) {
+            data.putDouble(i * Double.BYTES, value);
+        }
+    }
+
+    public void copy(Token token, Buffer source, int from, int to, int count) {
+        if (count < 0 || from < 0 || to < 0 || count > source.length - from || count > length - to) {
+            throw new RuntimeError(token, "BoundsError", "Copy of " + count + " reals out of bounds.");
+        }
+        ByteBuffer slice = source.data(token).duplicate();
+        slice.limit((from + count) * Double.BYTES).position(from * Double.BYTES);
+        ByteBuffer target = data(token).duplicate();
+        target.position(to * Double.BYTES);
+        target.put(slice);
+    }
+
+    public void close() {
+        if (data instanceof MappedByteBuffer) {
+            ((MappedByteBuffer)data).force();
+        }
+        data = null;
+    }
+
+    private double real(Object value) {
+        return ((Real)value).getValue();
+    }
+
+    public Function method(Token name) {
+        if (bound == null) {
+            bound = methods.table();
+        }
+        return methods.bind(this, bound, name);
+    }
+
+    @Override
+    public String toString() {
+        return data == null ? "<closed buffer>" : "<buffer of " + length + " reals>";
+    }
+}
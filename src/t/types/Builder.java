@@ -0,0 +1,99 @@
+package t.types;
+
+import t.Interpreter;
+import t.RuntimeError;
+import t.Token;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import static t.TokenType.*;
+import static t.types.Methods.param;
+
+public class Builder {
+    private static final Methods<Builder> methods = new Methods<>();
+    private static final int CHUNK = 8192;
+    private final StringBuilder builder = new StringBuilder();
+
+    private Function[] bound;
+
+    static {
+        methods.add(ID, "builder", "append", (builder, interpreter, token, args) ->
+                builder.append(interpreter, args.get(0)), param(FREE, "free", "value"));
+        methods.add(ID, "builder", "insert", (builder, interpreter, token, args) ->
+                builder.insert(interpreter, token, args.get(0), args.get(1)),
+                param(REAL, "real", "index"), param(FREE, "free", "value"));
+        methods.add(REAL, "real", "len", (builder, interpreter, token, args) -> new Real(builder.builder.length()));
+        methods.add(CHAR, "char", "toChar", (builder, interpreter, token, args) ->
+                new Char(builder.builder.toString()));
+        methods.add(VOID, "void", "print", (builder, interpreter, token, args) -> {
+            builder.print(token);
+            return null;
+        });
+        methods.add(VOID, "void", "write", (builder, interpreter, token, args) -> {
+            builder.write(token, ((Char)args.get(0)).getValue());
+            return null;
+        }, param(CHAR, "char", "file"));
+    }
+
+    public Builder append(Interpreter interpreter, Object value) {
+        if (value instanceof Char) {
+            ((Char)value).appendTo(builder);
+        }
+        else {
+            builder.append(interpreter.stringify(value));
+        }
+        return this;
+    }
+
+    public Builder insert(Interpreter interpreter, Token token, Object index, Object value) {
+        int i = index instanceof Real ? (int)Math.round(((Real)index).getValue()) : -1;
+        if (i < 0 || i > builder.length()) {
+            throw new RuntimeError(token, "BoundsError", "Index " + interpreter.stringify(index) + " out of bounds.");
+        }
+        builder.insert(i, value instanceof Char ? ((Char)value).getValue() : interpreter.stringify(value));
+        return this;
+    }
+
+    private void writeTo(Writer writer) throws IOException {
+        char[] chunk = new char[Math.min(CHUNK, builder.length())];
+        for (int start = 0; start < builder.length(); start += chunk.length) {
+            int end = Math.min(start + chunk.length, builder.length());
+            builder.getChars(start, end, chunk, 0);
+            writer.write(chunk, 0, end - start);
+        }
+        writer.flush();
+    }
+
+    public void print(Token token) {
+        try {
+            writeTo(new OutputStreamWriter(System.out));
+        }
+        catch (IOException e) {
+            throw new RuntimeError(token, "IOError", "Cannot write to stdout.");
+        }
+    }
+
+    public void write(Token token, String file) {
+        try (Writer writer = new FileWriter(file, true)) {
+            writeTo(writer);
+        }
+        catch (IOException e) {
+            throw new RuntimeError(token, "FileError", "Cannot write to file '" + file + "'.");
+        }
+    }
+
+    public Function method(Token name) {
+        if (bound == null) {
+            bound = methods.table();
+        }
+        return methods.bind(this, bound, name);
+    }
+
+    @Override
+    public String toString() {
+        return builder.toString();
+    }
+}
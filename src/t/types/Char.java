@@ -1,19 +1,165 @@
 package t.types;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
 public class Char {
+    private static final int FLAT_LIMIT = 64;
+    private static final Char[] LATIN1 = new Char[256];
     private String value;
+    private String source;
+    private int offset;
+    private Char left;
+    private Char right;
+    private final int length;
+    private final int depth;
+
+    static {
+        for (int c = 0; c < LATIN1.length; c++) {
+            LATIN1[c] = new Char(String.valueOf((char)c));
+        }
+    }
 
     public Char(String value) {
         this.value = value;
+        this.length = value.length();
+        this.depth = 0;
+    }
+
+    private Char(String source, int offset, int length) {
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+        this.depth = 0;
+    }
+
+    private Char(Char left, Char right) {
+        this.left = left;
+        this.right = right;
+        this.length = left.length + right.length;
+        this.depth = 1 + Math.max(left.depth(), right.depth());
+    }
+
+    public static Char of(char c) {
+        return c < LATIN1.length ? LATIN1[c] : new Char(String.valueOf(c));
+    }
+
+    public static Char concat(Char left, Char right) {
+        if (left.length + right.length <= FLAT_LIMIT) {
+            return new Char(left.getValue() + right.getValue());
+        }
+        return join(left, right);
+    }
+
+    private int depth() {
+        return left == null ? 0 : depth;
+    }
+
+    private static Char join(Char left, Char right) {
+        if (left.depth() > right.depth() + 1) {
+            Char joined = join(left.right, right);
+            if (joined.depth() > left.left.depth() + 1) {
+                return rotateLeft(left.left, joined);
+            }
+            return new Char(left.left, joined);
+        }
+        if (right.depth() > left.depth() + 1) {
+            Char joined = join(left, right.left);
+            if (joined.depth() > right.right.depth() + 1) {
+                return rotateRight(joined, right.right);
+            }
+            return new Char(joined, right.right);
+        }
+        return new Char(left, right);
+    }
+
+    private static Char rotateLeft(Char left, Char right) {
+        if (right.left.depth() > right.right.depth()) {
+            Char inner = right.left;
+            return new Char(new Char(left, inner.left), new Char(inner.right, right.right));
+        }
+        return new Char(new Char(left, right.left), right.right);
+    }
+
+    private static Char rotateRight(Char left, Char right) {
+        if (left.right.depth() > left.left.depth()) {
+            Char inner = left.right;
+            return new Char(new Char(left.left, inner.left), new Char(inner.right, right));
+        }
+        return new Char(left.left, new Char(left.right, right));
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public char charAt(int index) {
+        return storage().charAt(start() + index);
+    }
+
+    public Char substring(int from, int to) {
+        if (to - from == 1) {
+            return of(charAt(from));
+        }
+        if (from == 0 && to == length) {
+            return this;
+        }
+        return new Char(storage(), start() + from, to - from);
     }
 
     public String getValue() {
+        if (value == null) {
+            if (source != null) {
+                value = source.substring(offset, offset + length);
+                source = null;
+            }
+            else {
+                flatten();
+            }
+        }
         return value;
     }
 
+    private String storage() {
+        if (value == null && source == null) {
+            flatten();
+        }
+        return value != null ? value : source;
+    }
+
+    private int start() {
+        return value != null ? 0 : offset;
+    }
+
+    public void appendTo(StringBuilder builder) {
+        Deque<Char> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Char node = pending.pop();
+            if (node.value != null) {
+                builder.append(node.value);
+            }
+            else if (node.source != null) {
+                builder.append(node.source, node.offset, node.offset + node.length);
+            }
+            else {
+                pending.push(node.right);
+                pending.push(node.left);
+            }
+        }
+    }
+
+    private void flatten() {
+        StringBuilder builder = new StringBuilder(length);
+        appendTo(builder);
+        value = builder.toString();
+        left = null;
+        right = null;
+    }
+
     @Override
     public String toString() {
-        return value;
+        return getValue();
     }
 
     @Override
@@ -22,8 +168,24 @@ public class Char {
             return false;
         }
         if (o instanceof Char) {
-            return value.equals(((Char)o).value);
+            Char other = (Char)o;
+            return length == other.length &&
+                    storage().regionMatches(start(), other.storage(), other.start(), length);
         }
         return false;
     }
+
+    @Override
+    public int hashCode() {
+        if (value != null) {
+            return value.hashCode();
+        }
+        String chars = storage();
+        int start = start();
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        return hash;
+    }
 }
@@ -0,0 +1,163 @@
+package t.types;
+
+import t.RuntimeError;
+import t.Token;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static t.TokenType.*;
+import static t.types.Methods.param;
+
+public class Columns {
+    private static final Methods<Columns> methods = new Methods<>();
+    private final Struct struct;
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final String[] names;
+    private final Object[] columns;
+    private int size = 0;
+    private int capacity = 8;
+
+    private Function[] bound;
+
+    static {
+        methods.add(VOID, "void", "add", (columns, interpreter, token, args) -> {
+            columns.add(token, args.get(0));
+            return null;
+        }, param(FREE, "free", "instance"));
+        methods.add(FREE, "free", "get", (columns, interpreter, token, args) ->
+                columns.get(columns.index(token, args.get(0))), param(REAL, "real", "index"));
+        methods.add(REAL, "real", "len", (columns, interpreter, token, args) -> new Real(columns.size));
+        methods.add(REAL, "real", "sum", (columns, interpreter, token, args) ->
+                new Real(columns.sum(token, ((Char)args.get(0)).getValue())), param(CHAR, "char", "attr"));
+    }
+
+    public Columns(Struct struct) {
+        this.struct = struct;
+        this.names = struct.getAttrs().keySet().toArray(new String[0]);
+        this.columns = new Object[names.length];
+        for (int i = 0; i < names.length; i++) {
+            indices.put(names[i], i);
+            columns[i] = struct.getAttrs().get(names[i]).equals("real") ? new double[capacity] : new Object[capacity];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Instance get(int index) {
+        return new Row(index);
+    }
+
+    public void add(Token token, Object value) {
+        if (!(value instanceof Instance) || ((Instance)value).getStruct() != struct) {
+            throw new RuntimeError(token, "TypeError", "Columns of " + struct + " can only hold its instances.");
+        }
+        Instance instance = (Instance)value;
+        if (size == capacity) {
+            capacity *= 2;
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = columns[i] instanceof double[] ?
+                        Arrays.copyOf((double[])columns[i], capacity) : Arrays.copyOf((Object[])columns[i], capacity);
+            }
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (instance.hasAttr(names[i])) {
+                store(i, size, instance.getAttr(names[i]));
+            }
+        }
+        size++;
+    }
+
+    private void store(int column, int index, Object value) {
+        if (columns[column] instanceof double[]) {
+            ((double[])columns[column])[index] = ((Real)value).getValue();
+        }
+        else {
+            ((Object[])columns[column])[index] = value;
+        }
+    }
+
+    private Object load(int column, int index) {
+        if (columns[column] instanceof double[]) {
+            return new Real(((double[])columns[column])[index]);
+        }
+        return ((Object[])columns[column])[index];
+    }
+
+    public double sum(Token token, String attr) {
+        Integer column = indices.get(attr);
+        if (column == null || !(columns[column] instanceof double[])) {
+            throw new RuntimeError(token, "AttrError", struct + " has no real attribute '" + attr + "'.");
+        }
+        double[] values = (double[])columns[column];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    public int index(Token token, Object index) {
+        if (!(index instanceof Real)) {
+            throw new RuntimeError(token, "SliceError", "Can only index columns at real indices.");
+        }
+        int i = (int)Math.round(((Real)index).getValue());
+        if (i < 0 || i >= size) {
+            throw new RuntimeError(token, "BoundsError", "Index " + i + " out of bounds.");
+        }
+        return i;
+    }
+
+    private class Row extends Instance {
+        private final int index;
+
+        Row(int index) {
+            super(struct, null);
+            this.index = index;
+        }
+
+        @Override
+        boolean hasAttr(String name) {
+            return indices.containsKey(name);
+        }
+
+        @Override
+        Object getAttr(String name) {
+            return load(indices.get(name), index);
+        }
+
+        @Override
+        public void set(Token name, Object value) {
+            store(indices.get(name.getLexeme()), index, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Row && ((Row)o).owner() == Columns.this && ((Row)o).index == index;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(Columns.this) * 31 + index;
+        }
+
+        private Columns owner() {
+            return Columns.this;
+        }
+    }
+
+    public Function method(Token name) {
+        if (bound == null) {
+            bound = methods.table();
+        }
+        return methods.bind(this, bound, name);
+    }
+
+    @Override
+    public String toString() {
+        return "<columns of struct " + struct.getName().getLexeme() + ">";
+    }
+}
@@ -1,58 +1,72 @@
 package t.types;
 
+import t.RuntimeError;
 import t.Token;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Enum {
     private final Token name;
-    private final List<Token> enums;
+    private final EnumType[] elements;
+    private final Map<String, EnumType> byName = new HashMap<>();
 
     public class EnumType {
-        private final Enum e;
         private final Token name;
+        private final int ordinal;
 
-        private EnumType(Enum e, Token name) {
-            this.e = e;
+        private EnumType(Token name, int ordinal) {
             this.name = name;
+            this.ordinal = ordinal;
         }
 
         public Enum getEnum() {
-            return e;
+            return Enum.this;
         }
 
         public Token getName() {
             return name;
         }
 
-        @Override
-        public String toString() {
-            return "<enum element " + name.getLexeme() + ">";
+        public int getOrdinal() {
+            return ordinal;
         }
 
         @Override
-        public boolean equals(Object o) {
-            if (o == null) {
-                return false;
-            }
-            if (o instanceof EnumType) {
-                return name.getLexeme().equals(((EnumType)o).name.getLexeme());
-            }
-            return false;
+        public String toString() {
+            return "<enum element " + name.getLexeme() + ">";
         }
     }
 
     public Enum(Token name, List<Token> enums) {
         this.name = name;
-        this.enums = enums;
+        this.elements = new EnumType[enums.size()];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = new EnumType(enums.get(i), i);
+            byName.putIfAbsent(enums.get(i).getLexeme(), elements[i]);
+        }
     }
 
     public Token getName() {
         return name;
     }
 
+    public int size() {
+        return elements.length;
+    }
+
+    public EnumType getElement(int ordinal) {
+        return elements[ordinal];
+    }
+
     public EnumType getEnum(Token name) {
-        return new EnumType(this, name);
+        EnumType element = byName.get(name.getLexeme());
+        if (element == null) {
+            throw new RuntimeError(name, "AttrError",
+                    "Enum " + this + " has no element '" + name.getLexeme() + "'.");
+        }
+        return element;
     }
 
     @Override
@@ -0,0 +1,142 @@
+package t.types;
+
+import t.RuntimeError;
+import t.Token;
+
+import java.util.Arrays;
+
+import static t.TokenType.*;
+import static t.types.Methods.param;
+
+public class EnumFlags {
+    private static final Methods<EnumFlags> methods = new Methods<>();
+    private final Enum e;
+    private final long[] words;
+
+    private Function[] bound;
+
+    static {
+        methods.add(VOID, "void", "add", (flags, interpreter, token, args) -> {
+            flags.add(token, args.get(0));
+            return null;
+        }, param(FREE, "free", "element"));
+        methods.add(VOID, "void", "remove", (flags, interpreter, token, args) -> {
+            flags.remove(token, args.get(0));
+            return null;
+        }, param(FREE, "free", "element"));
+        methods.add(BOOL, "bool", "contains", (flags, interpreter, token, args) ->
+                new Bool(flags.contains(token, args.get(0))), param(FREE, "free", "element"));
+        methods.add(REAL, "real", "len", (flags, interpreter, token, args) -> new Real(flags.size()));
+        methods.add(ID, "flags", "union", (flags, interpreter, token, args) ->
+                flags.union(token, (EnumFlags)args.get(0)), param(ID, "flags", "other"));
+        methods.add(ID, "flags", "intersect", (flags, interpreter, token, args) ->
+                flags.intersect(token, (EnumFlags)args.get(0)), param(ID, "flags", "other"));
+    }
+
+    public EnumFlags(Enum e, boolean full) {
+        this.e = e;
+        this.words = new long[(e.size() + 63) >>> 6];
+        if (full) {
+            for (int i = 0; i < e.size(); i++) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    private EnumFlags(Enum e, long[] words) {
+        this.e = e;
+        this.words = words;
+    }
+
+    private int ordinalOf(Token token, Object element) {
+        if (!(element instanceof Enum.EnumType) || ((Enum.EnumType)element).getEnum() != e) {
+            throw new RuntimeError(token, "TypeError", "Flags of " + e + " cannot hold " + element + ".");
+        }
+        return ((Enum.EnumType)element).getOrdinal();
+    }
+
+    private EnumFlags check(Token token, EnumFlags other) {
+        if (other.e != e) {
+            throw new RuntimeError(token, "TypeError", "Cannot combine flags of " + e + " and " + other.e + ".");
+        }
+        return other;
+    }
+
+    public void add(Token token, Object element) {
+        int ordinal = ordinalOf(token, element);
+        words[ordinal >>> 6] |= 1L << ordinal;
+    }
+
+    public void remove(Token token, Object element) {
+        int ordinal = ordinalOf(token, element);
+        words[ordinal >>> 6] &= ~(1L << ordinal);
+    }
+
+    public boolean contains(Token token, Object element) {
+        int ordinal = ordinalOf(token, element);
+        return (words[ordinal >>> 6] & 1L << ordinal) != 0;
+    }
+
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    public EnumFlags union(Token token, EnumFlags other) {
+        check(token, other);
+        long[] result = words.clone();
+        for (int i = 0; i < result.length; i++) {
+            result[i] |= other.words[i];
+        }
+        return new EnumFlags(e, result);
+    }
+
+    public EnumFlags intersect(Token token, EnumFlags other) {
+        check(token, other);
+        long[] result = words.clone();
+        for (int i = 0; i < result.length; i++) {
+            result[i] &= other.words[i];
+        }
+        return new EnumFlags(e, result);
+    }
+
+    public Function method(Token name) {
+        if (bound == null) {
+            bound = methods.table();
+        }
+        return methods.bind(this, bound, name);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof EnumFlags) {
+            EnumFlags other = (EnumFlags)o;
+            return e == other.e && Arrays.equals(words, other.words);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("<flags " + e.getName().getLexeme() + " {");
+        boolean first = true;
+        for (int i = 0; i < e.size(); i++) {
+            if ((words[i >>> 6] & 1L << i) != 0) {
+                if (!first) {
+                    builder.append(", ");
+                }
+                builder.append(e.getElement(i).getName().getLexeme());
+                first = false;
+            }
+        }
+        return builder.append("}>").toString();
+    }
+}
@@ -49,16 +49,32 @@ public class Function implements Callable {
     }
 
     public Object call(Interpreter interpreter, List<Object> args) {
-        Environment env = new Environment(closure);
+        List<Stmt> body = declaration.getBody();
+        if (declaration.getCompiled() != null) {
+            return declaration.getCompiled().call(interpreter, args);
+        }
+        boolean escapes = declaration.frameEscapes();
+        Environment env = escapes ? interpreter.newFrame(closure) : interpreter.acquireFrame(closure);
         for (int i = 0; i < declaration.getParams().size(); i++) {
-            env.define(declaration.getParams().get(i).getName().getLexeme(), args.get(i));
+            Expr.Param param = declaration.getParams().get(i);
+            if (param.isBoxed()) {
+                env.defineCell(param.getName().getLexeme(), args.get(i));
+            }
+            else {
+                env.define(param.getName().getLexeme(), args.get(i));
+            }
         }
         try {
-            interpreter.executeBlock(declaration.getBody(), env);
+            interpreter.executeBlock(body, env);
         }
         catch (Return ret) {
             return ret.getValue();
         }
+        finally {
+            if (!escapes) {
+                interpreter.releaseFrame(env);
+            }
+        }
         if (isConstructor) {
             return closure.getAt(0, "this");
         }
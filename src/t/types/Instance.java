@@ -7,21 +7,38 @@ import java.util.HashMap;
 
 public class Instance {
     private Struct struct;
-    private final java.util.Map<String, Object> attrs = new HashMap<>();
+    private final java.util.Map<String, Object> attrs;
 
     Instance(Struct struct) {
+        this(struct, new HashMap<>());
+    }
+
+    Instance(Struct struct, java.util.Map<String, Object> attrs) {
         this.struct = struct;
+        this.attrs = attrs;
     }
 
     public Struct getStruct() {
         return struct;
     }
 
+    boolean hasAttr(String name) {
+        return attrs.containsKey(name);
+    }
+
+    Object getAttr(String name) {
+        return attrs.get(name);
+    }
+
     public Object get(Token name) {
-        if (attrs.containsKey(name.getLexeme())) {
-            return attrs.get(name.getLexeme());
+        return get(name, Struct.slotOf(name.getLexeme()));
+    }
+
+    public Object get(Token name, int slot) {
+        if (hasAttr(name.getLexeme())) {
+            return getAttr(name.getLexeme());
         }
-        Function function = struct.getFunction(this, name.getLexeme());
+        Function function = struct.getFunction(this, slot);
         if (function != null) {
             return function;
         }
@@ -0,0 +1,78 @@
+package t.types;
+
+import t.Expr;
+import t.Interpreter;
+import t.Stmt;
+import t.Token;
+import t.TokenType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static t.TokenType.*;
+
+public class Methods<T> {
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final List<Stmt.Function> declarations = new ArrayList<>();
+    private final List<Body<T>> bodies = new ArrayList<>();
+
+    public interface Body<T> {
+        Object call(T receiver, Interpreter interpreter, Token token, List<Object> args);
+    }
+
+    public static Expr.Param param(TokenType type, String typeName, String name) {
+        return new Expr.Param(new Token(type, typeName, null, 0), new Token(ID, name, null, 0));
+    }
+
+    public void add(TokenType type, String typeName, String name, Body<T> body, Expr.Param... params) {
+        Stmt.Function declaration = new Stmt.Function(new Token(type, typeName, null, 0),
+                new Token(ID, name, null, 0), Arrays.asList(params), new ArrayList<>());
+        declaration.setBuiltin(false);
+        indices.put(name, declarations.size());
+        declarations.add(declaration);
+        bodies.add(body);
+    }
+
+    public Function[] table() {
+        return new Function[declarations.size()];
+    }
+
+    public Function bind(T receiver, Function[] bound, Token name) {
+        Integer index = indices.get(name.getLexeme());
+        if (index == null) {
+            return null;
+        }
+        if (bound[index] == null) {
+            bound[index] = new Bound<>(declarations.get(index), bodies.get(index), receiver);
+        }
+        return bound[index];
+    }
+
+    public static class Bound<T> extends Function {
+        private final Body<T> body;
+        private final T receiver;
+
+        Bound(Stmt.Function declaration, Body<T> body, T receiver) {
+            super(declaration, null, false, false);
+            this.body = body;
+            this.receiver = receiver;
+        }
+
+        @Override
+        public Object call(Interpreter interpreter, List<Object> args) {
+            return call(interpreter, getName(), args);
+        }
+
+        public Object call(Interpreter interpreter, Token token, List<Object> args) {
+            return body.call(receiver, interpreter, token, args);
+        }
+
+        @Override
+        public String toString() {
+            return "<" + getDeclaration().getType().getLexeme() + " fn " + getName().getLexeme() + ">";
+        }
+    }
+}
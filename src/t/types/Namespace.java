@@ -1,8 +1,10 @@
 package t.types;
 
 
+import t.Stmt;
 import t.Token;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,11 +14,14 @@ public class Namespace {
     private final Map<String, Function> functions;
     private final Map<String, Struct> structs;
     private final Map<String, Namespace> namespaces;
+    private final Stmt.Namespace declaration;
+    private Object[] slots = new Object[0];
     private boolean isIncluded = false;
 
     public Namespace(Token name, List<Function> functionList, List<Struct> structList,
-              List<Namespace> namespaceList) {
+              List<Namespace> namespaceList, Stmt.Namespace declaration) {
         this.name = name;
+        this.declaration = declaration;
         functions = new HashMap<>();
         for (Function function: functionList) {
             functions.put(function.getName().getLexeme(), function);
@@ -32,8 +37,9 @@ public class Namespace {
     }
 
     public Namespace(Token name, Map<String, Function> functions, Map<String, Struct> structs,
-                      Map<String, Namespace> namespaces) {
+                      Map<String, Namespace> namespaces, Stmt.Namespace declaration) {
         this.name = name;
+        this.declaration = declaration;
         this.functions = functions;
         this.structs = structs;
         this.namespaces = namespaces;
@@ -43,6 +49,10 @@ public class Namespace {
         return name;
     }
 
+    public Stmt.Namespace getDeclaration() {
+        return declaration;
+    }
+
     public boolean isIncluded() {
         return isIncluded;
     }
@@ -63,6 +73,29 @@ public class Namespace {
         return namespaces.getOrDefault(name.getLexeme(), null);
     }
 
+    public Object getMember(Token name) {
+        Object member = getFunction(name);
+        if (member == null) {
+            member = getStruct(name);
+            if (member == null) {
+                member = getNamespace(name);
+            }
+        }
+        return member;
+    }
+
+    public Object getSlot(int slot, Token name) {
+        if (slot >= slots.length) {
+            slots = Arrays.copyOf(slots, slot + 1);
+        }
+        Object member = slots[slot];
+        if (member == null) {
+            member = getMember(name);
+            slots[slot] = member;
+        }
+        return member;
+    }
+
     @Override
     public String toString() {
         return "<namespace " + name.getLexeme() + ">";
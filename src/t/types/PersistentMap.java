@@ -0,0 +1,326 @@
+package t.types;
+
+import t.RuntimeError;
+import t.Token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static t.TokenType.*;
+import static t.types.Methods.param;
+
+public class PersistentMap {
+    private static final Methods<PersistentMap> methods = new Methods<>();
+    private static final Object MISSING = new Object();
+    public static final PersistentMap EMPTY = new PersistentMap(0, null);
+    private final int count;
+    private final Node root;
+
+    private Function[] bound;
+
+    static {
+        methods.add(FREE, "free", "get", (dict, interpreter, token, args) -> dict.get(token, args.get(0)),
+                param(FREE, "free", "key"));
+        methods.add(ID, "dict", "put", (dict, interpreter, token, args) -> dict.put(token, args.get(0), args.get(1)),
+                param(FREE, "free", "key"), param(FREE, "free", "value"));
+        methods.add(ID, "dict", "remove", (dict, interpreter, token, args) -> dict.remove(token, args.get(0)),
+                param(FREE, "free", "key"));
+        methods.add(BOOL, "bool", "contains", (dict, interpreter, token, args) ->
+                new Bool(dict.contains(token, args.get(0))), param(FREE, "free", "key"));
+        methods.add(REAL, "real", "len", (dict, interpreter, token, args) -> new Real(dict.count));
+        methods.add(LIST, "list", "keys", (dict, interpreter, token, args) -> new Sequence(dict.entries(0)));
+        methods.add(LIST, "list", "values", (dict, interpreter, token, args) -> new Sequence(dict.entries(1)));
+    }
+
+    private PersistentMap(int count, Node root) {
+        this.count = count;
+        this.root = root;
+    }
+
+    public static PersistentMap of(Token token, Table table) {
+        PersistentMap map = EMPTY;
+        Sequence keys = table.keys();
+        Sequence values = table.values();
+        for (int i = 0; i < keys.size(); i++) {
+            map = map.put(token, keys.get(i), values.get(i));
+        }
+        return map;
+    }
+
+    private static int hash(Token token, Object key) {
+        if (key == null) {
+            throw new RuntimeError(token, "KeyError", "Dict keys cannot be nil.");
+        }
+        return spread(key);
+    }
+
+    private static int spread(Object key) {
+        int h = key.hashCode();
+        return h ^ h >>> 16;
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << (hash >>> shift & 31);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean contains(Token token, Object key) {
+        int hash = hash(token, key);
+        return root != null && root.find(0, hash, key) != MISSING;
+    }
+
+    public Object get(Token token, Object key) {
+        int hash = hash(token, key);
+        Object value = root == null ? MISSING : root.find(0, hash, key);
+        if (value == MISSING) {
+            throw new RuntimeError(token, "KeyError", "Dict has no key '" + key + "'.");
+        }
+        return value;
+    }
+
+    public PersistentMap put(Token token, Object key, Object value) {
+        int hash = hash(token, key);
+        boolean[] added = new boolean[1];
+        Node node = root == null ? BitmapNode.EMPTY : root;
+        Node newRoot = node.put(0, hash, key, value, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentMap(added[0] ? count + 1 : count, newRoot);
+    }
+
+    public PersistentMap remove(Token token, Object key) {
+        if (!contains(token, key)) {
+            throw new RuntimeError(token, "KeyError", "Dict has no key '" + key + "'.");
+        }
+        return new PersistentMap(count - 1, root.remove(0, hash(token, key), key));
+    }
+
+    private List<Object> entries(int column) {
+        List<Object> entries = new ArrayList<>(count);
+        if (root != null) {
+            root.collect(entries, column);
+        }
+        return entries;
+    }
+
+    private static abstract class Node {
+        abstract Object find(int shift, int hash, Object key);
+        abstract Node put(int shift, int hash, Object key, Object value, boolean[] added);
+        abstract Node remove(int shift, int hash, Object key);
+        abstract void collect(List<Object> entries, int column);
+    }
+
+    private static class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+        private final int bitmap;
+        private final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & bit - 1);
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return MISSING;
+            }
+            int i = 2 * index(bit);
+            Object k = array[i];
+            if (k == null) {
+                return ((Node)array[i + 1]).find(shift + 5, hash, key);
+            }
+            return key.equals(k) ? array[i + 1] : MISSING;
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            int i = 2 * index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[array.length + 2];
+                System.arraycopy(array, 0, copy, 0, i);
+                copy[i] = key;
+                copy[i + 1] = value;
+                System.arraycopy(array, i, copy, i + 2, array.length - i);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, copy);
+            }
+            Object k = array[i];
+            Object v = array[i + 1];
+            Object[] copy = array.clone();
+            if (k == null) {
+                Node child = ((Node)v).put(shift + 5, hash, key, value, added);
+                if (child == v) {
+                    return this;
+                }
+                copy[i + 1] = child;
+            }
+            else if (key.equals(k)) {
+                if (v == value) {
+                    return this;
+                }
+                copy[i + 1] = value;
+            }
+            else {
+                added[0] = true;
+                copy[i] = null;
+                copy[i + 1] = pair(shift + 5, k, v, hash, key, value);
+            }
+            return new BitmapNode(bitmap, copy);
+        }
+
+        private static Node pair(int shift, Object k1, Object v1, int h2, Object k2, Object v2) {
+            int h1 = spread(k1);
+            if (h1 == h2) {
+                return new CollisionNode(h1, new Object[] {k1, v1, k2, v2});
+            }
+            boolean[] added = new boolean[1];
+            return EMPTY.put(shift, h1, k1, v1, added).put(shift, h2, k2, v2, added);
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = 2 * index(bit);
+            Object k = array[i];
+            if (k == null) {
+                Node child = ((Node)array[i + 1]).remove(shift + 5, hash, key);
+                if (child == array[i + 1]) {
+                    return this;
+                }
+                if (child != null) {
+                    Object[] copy = array.clone();
+                    copy[i + 1] = child;
+                    return new BitmapNode(bitmap, copy);
+                }
+            }
+            else if (!key.equals(k)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, i);
+            System.arraycopy(array, i + 2, copy, i, array.length - i - 2);
+            return new BitmapNode(bitmap ^ bit, copy);
+        }
+
+        @Override
+        void collect(List<Object> entries, int column) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node)array[i + 1]).collect(entries, column);
+                }
+                else {
+                    entries.add(array[i + column]);
+                }
+            }
+        }
+    }
+
+    private static class CollisionNode extends Node {
+        private final int hash;
+        private final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int index(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int i = hash == this.hash ? index(key) : -1;
+            return i < 0 ? MISSING : array[i + 1];
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                return new BitmapNode(bit(this.hash, shift), new Object[] {null, this})
+                        .put(shift, hash, key, value, added);
+            }
+            int i = index(key);
+            if (i >= 0) {
+                if (array[i + 1] == value) {
+                    return this;
+                }
+                Object[] copy = array.clone();
+                copy[i + 1] = value;
+                return new CollisionNode(hash, copy);
+            }
+            Object[] copy = Arrays.copyOf(array, array.length + 2);
+            copy[array.length] = key;
+            copy[array.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            int i = hash == this.hash ? index(key) : -1;
+            if (i < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, i);
+            System.arraycopy(array, i + 2, copy, i, array.length - i - 2);
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        void collect(List<Object> entries, int column) {
+            for (int i = 0; i < array.length; i += 2) {
+                entries.add(array[i + column]);
+            }
+        }
+    }
+
+    public Function method(Token name) {
+        if (bound == null) {
+            bound = methods.table();
+        }
+        return methods.bind(this, bound, name);
+    }
+
+    @Override
+    public String toString() {
+        List<Object> keys = entries(0);
+        List<Object> values = entries(1);
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < keys.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            Object value = values.get(i);
+            builder.append(keys.get(i)).append(": ").append(value == null ? "nil" : value.toString());
+        }
+        return builder.append("}").toString();
+    }
+}
@@ -0,0 +1,216 @@
+package t.types;
+
+import t.RuntimeError;
+import t.Token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static t.TokenType.*;
+import static t.types.Methods.param;
+
+public class PersistentVector {
+    private static final Methods<PersistentVector> methods = new Methods<>();
+    private static final Object[] EMPTY_NODE = new Object[32];
+    public static final PersistentVector EMPTY = new PersistentVector(0, 5, EMPTY_NODE, new Object[0]);
+    private final int count;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    private Function[] bound;
+
+    static {
+        methods.add(FREE, "free", "get", (vector, interpreter, token, args) ->
+                vector.get(vector.index(token, args.get(0))), param(REAL, "real", "index"));
+        methods.add(ID, "vector", "set", (vector, interpreter, token, args) ->
+                vector.set(vector.index(token, args.get(0)), args.get(1)),
+                param(REAL, "real", "index"), param(FREE, "free", "value"));
+        methods.add(ID, "vector", "push", (vector, interpreter, token, args) -> vector.push(args.get(0)),
+                param(FREE, "free", "value"));
+        methods.add(ID, "vector", "pop", (vector, interpreter, token, args) -> vector.pop(token));
+        methods.add(REAL, "real", "len", (vector, interpreter, token, args) -> new Real(vector.count));
+        methods.add(LIST, "list", "toList", (vector, interpreter, token, args) -> {
+            List<Object> elements = new ArrayList<>(vector.count);
+            for (int i = 0; i < vector.count; i++) {
+                elements.add(vector.get(i));
+            }
+            return new Sequence(elements);
+        });
+    }
+
+    private PersistentVector(int count, int shift, Object[] root, Object[] tail) {
+        this.count = count;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    public static PersistentVector of(Sequence sequence) {
+        PersistentVector vector = EMPTY;
+        for (int i = 0; i < sequence.size(); i++) {
+            vector = vector.push(sequence.get(i));
+        }
+        return vector;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private int tailOffset() {
+        return count < 32 ? 0 : (count - 1) >>> 5 << 5;
+    }
+
+    private Object[] leafFor(int index) {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= 5) {
+            node = (Object[])node[index >>> level & 31];
+        }
+        return node;
+    }
+
+    public Object get(int index) {
+        return leafFor(index)[index & 31];
+    }
+
+    public PersistentVector set(int index, Object value) {
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & 31] = value;
+            return new PersistentVector(count, shift, root, newTail);
+        }
+        return new PersistentVector(count, shift, set(shift, root, index, value), tail);
+    }
+
+    private static Object[] set(int level, Object[] node, int index, Object value) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & 31] = value;
+        }
+        else {
+            int sub = index >>> level & 31;
+            copy[sub] = set(level - 5, (Object[])node[sub], index, value);
+        }
+        return copy;
+    }
+
+    public PersistentVector push(Object value) {
+        if (count - tailOffset() < 32) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = value;
+            return new PersistentVector(count + 1, shift, root, newTail);
+        }
+        Object[] newRoot;
+        int newShift = shift;
+        if (count >>> 5 > 1 << shift) {
+            newRoot = new Object[32];
+            newRoot[0] = root;
+            newRoot[1] = path(shift, tail);
+            newShift += 5;
+        }
+        else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentVector(count + 1, newShift, newRoot, new Object[] {value});
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] leaf) {
+        int sub = (count - 1) >>> level & 31;
+        Object[] copy = parent.clone();
+        if (level == 5) {
+            copy[sub] = leaf;
+        }
+        else {
+            Object[] child = (Object[])parent[sub];
+            copy[sub] = child != null ? pushTail(level - 5, child, leaf) : path(level - 5, leaf);
+        }
+        return copy;
+    }
+
+    private static Object[] path(int level, Object[] leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+        Object[] node = new Object[32];
+        node[0] = path(level - 5, leaf);
+        return node;
+    }
+
+    public PersistentVector pop(Token token) {
+        if (count == 0) {
+            throw new RuntimeError(token, "BoundsError", "Cannot pop from an empty vector.");
+        }
+        if (count == 1) {
+            return EMPTY;
+        }
+        if (count - tailOffset() > 1) {
+            return new PersistentVector(count - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+        Object[] newTail = leafFor(count - 2);
+        Object[] newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = EMPTY_NODE;
+        }
+        if (shift > 5 && newRoot[1] == null) {
+            newRoot = (Object[])newRoot[0];
+            newShift -= 5;
+        }
+        return new PersistentVector(count - 1, newShift, newRoot, newTail);
+    }
+
+    private Object[] popTail(int level, Object[] node) {
+        int sub = (count - 2) >>> level & 31;
+        if (level > 5) {
+            Object[] child = popTail(level - 5, (Object[])node[sub]);
+            if (child == null && sub == 0) {
+                return null;
+            }
+            Object[] copy = node.clone();
+            copy[sub] = child;
+            return copy;
+        }
+        if (sub == 0) {
+            return null;
+        }
+        Object[] copy = node.clone();
+        copy[sub] = null;
+        return copy;
+    }
+
+    public int index(Token token, Object index) {
+        if (!(index instanceof Real)) {
+            throw new RuntimeError(token, "SliceError", "Can only index vectors at real indices.");
+        }
+        int i = (int)Math.round(((Real)index).getValue());
+        if (i < 0 || i >= count) {
+            throw new RuntimeError(token, "BoundsError", "Index " + i + " out of bounds.");
+        }
+        return i;
+    }
+
+    public Function method(Token name) {
+        if (bound == null) {
+            bound = methods.table();
+        }
+        return methods.bind(this, bound, name);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            Object element = get(i);
+            builder.append(element == null ? "nil" : element.toString());
+        }
+        return builder.append("]").toString();
+    }
+}
@@ -30,6 +30,11 @@ public class Real {
         return false;
     }
 
+    @Override
+    public int hashCode() {
+        return value == 0 ? 0 : Double.hashCode(value);
+    }
+
     public static Real add(Real a, Real b) {
         return new Real(a.value + b.value);
     }
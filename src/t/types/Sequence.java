@@ -0,0 +1,145 @@
+package t.types;
+
+import t.RuntimeError;
+import t.Token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static t.TokenType.*;
+import static t.types.Methods.param;
+
+public class Sequence {
+    private static final Methods<Sequence> methods = new Methods<>();
+    private double[] reals;
+    private Object[] values;
+    private int size;
+
+    private Function[] bound;
+
+    static {
+        methods.add(VOID, "void", "append", (list, interpreter, token, args) -> {
+            list.add(args.get(0));
+            return null;
+        }, param(FREE, "free", "value"));
+        methods.add(REAL, "real", "len", (list, interpreter, token, args) -> new Real(list.size));
+        methods.add(VOID, "void", "insert", (list, interpreter, token, args) -> {
+            list.insert(list.index(token, args.get(0), list.size + 1), args.get(1));
+            return null;
+        }, param(REAL, "real", "index"), param(FREE, "free", "value"));
+        methods.add(FREE, "free", "remove", (list, interpreter, token, args) ->
+                list.remove(list.index(token, args.get(0), list.size)), param(REAL, "real", "index"));
+    }
+
+    public Sequence(List<Object> elements) {
+        reals = new double[Math.max(elements.size(), 4)];
+        for (Object element : elements) {
+            add(element);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Object get(int index) {
+        return reals != null ? new Real(reals[index]) : values[index];
+    }
+
+    public void set(int index, Object value) {
+        if (reals != null) {
+            if (value instanceof Real) {
+                reals[index] = ((Real)value).getValue();
+                return;
+            }
+            generalize();
+        }
+        values[index] = value;
+    }
+
+    public Sequence slice(int from, int to) {
+        List<Object> elements = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            elements.add(get(i));
+        }
+        return new Sequence(elements);
+    }
+
+    public void add(Object value) {
+        insert(size, value);
+    }
+
+    public void insert(int index, Object value) {
+        if (reals != null && !(value instanceof Real)) {
+            generalize();
+        }
+        if (reals != null) {
+            if (size == reals.length) {
+                reals = Arrays.copyOf(reals, size * 2);
+            }
+            System.arraycopy(reals, index, reals, index + 1, size - index);
+            reals[index] = ((Real)value).getValue();
+        }
+        else {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+        }
+        size++;
+    }
+
+    public Object remove(int index) {
+        Object removed = get(index);
+        if (reals != null) {
+            System.arraycopy(reals, index + 1, reals, index, size - index - 1);
+        }
+        else {
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            values[size - 1] = null;
+        }
+        size--;
+        return removed;
+    }
+
+    private void generalize() {
+        values = new Object[reals.length];
+        for (int i = 0; i < size; i++) {
+            values[i] = new Real(reals[i]);
+        }
+        reals = null;
+    }
+
+    public int index(Token token, Object index, int limit) {
+        if (!(index instanceof Real)) {
+            throw new RuntimeError(token, "SliceError", "Can only index lists at real indices.");
+        }
+        int i = (int)Math.round(((Real)index).getValue());
+        if (i < 0 || i >= limit) {
+            throw new RuntimeError(token, "BoundsError", "Index " + i + " out of bounds.");
+        }
+        return i;
+    }
+
+    public Function method(Token name) {
+        if (bound == null) {
+            bound = methods.table();
+        }
+        return methods.bind(this, bound, name);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            Object element = get(i);
+            builder.append(element == null ? "nil" : element.toString());
+        }
+        return builder.append("]").toString();
+    }
+}
@@ -1,33 +1,79 @@
 package t.types;
 
-import t.AttrEnum;
 import t.Expr;
 import t.Interpreter;
 import t.Token;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class Struct implements Callable {
+    private static final Map<String, Integer> slots = new HashMap<>();
     private final Token name;
-    private final Struct superstruct;
     private final Map<String, String> attrs;
-    private final Map<String, AttrEnum> protections;
     private final Map<String, Function> functions;
+    private final Function[] methods;
     private Function constructor = null;
+    private final Map<String, Integer> fields;
+    private final Value[] interned;
 
-    public Struct(Token name, Struct superstruct, Map<String, String> attrs,
-                  Map<String, AttrEnum> protections, Map<String, Function> functions) {
+    public Struct(Token name, Struct superstruct, Map<String, String> attrs, Map<String, Function> functions) {
+        this(name, superstruct, attrs, functions, false);
+    }
+
+    public Struct(Token name, Struct superstruct, Map<String, String> attrs, Map<String, Function> functions,
+                  boolean immutable) {
         this.name = name;
-        this.superstruct = superstruct;
         this.attrs = attrs;
-        this.protections = protections;
         this.functions = functions;
+        for (String method : functions.keySet()) {
+            slotOf(method);
+        }
+        methods = superstruct == null ? new Function[slots.size()] : Arrays.copyOf(superstruct.methods, slots.size());
+        for (Map.Entry<String, Function> method : functions.entrySet()) {
+            methods[slotOf(method.getKey())] = method.getValue();
+        }
         Function cons = functions.get(name.getLexeme());
         if (cons != null && cons.isConstructor()) {
             constructor = cons;
         }
+        fields = immutable ? new HashMap<>() : null;
+        interned = immutable ? new Value[256] : null;
+        if (immutable) {
+            for (String attr : attrs.keySet()) {
+                fields.put(attr, fields.size());
+            }
+        }
+    }
+
+    public boolean isImmutable() {
+        return fields != null;
+    }
+
+    int fieldCount() {
+        return fields.size();
+    }
+
+    int fieldOf(String name) {
+        Integer field = fields.get(name);
+        return field == null ? -1 : field;
+    }
+
+    private Value intern(Value value) {
+        value.freeze();
+        if (!value.isScalar()) {
+            return value;
+        }
+        int slot = value.hashCode() & interned.length - 1;
+        Value cached = interned[slot];
+        if (value.equals(cached)) {
+            return cached;
+        }
+        interned[slot] = value;
+        return value;
     }
 
     @Override
@@ -44,10 +90,6 @@ public class Struct implements Callable {
         return constructor;
     }
 
-    public AttrEnum getProtectionFor(String attr) {
-        return protections.getOrDefault(attr, AttrEnum.PUBLIC);
-    }
-
     public Token getName() {
         return name;
     }
@@ -56,24 +98,25 @@ public class Struct implements Callable {
         return attrs;
     }
 
+    public static int slotOf(String method) {
+        return slots.computeIfAbsent(method, k -> slots.size());
+    }
+
     public Function getFunction(Instance instance, String name) {
-        if (functions.containsKey(name)) {
-            return functions.get(name).bind(instance);
-        }
-        else if (superstruct != null) {
-            return superstruct.getFunction(instance, name);
-        }
-        else {
-            return null;
-        }
+        return getFunction(instance, slotOf(name));
+    }
+
+    public Function getFunction(Instance instance, int slot) {
+        Function method = slot < methods.length ? methods[slot] : null;
+        return method == null ? null : method.bind(instance);
     }
 
     public Object call(Interpreter interpreter, List<Object> args) {
-        Instance instance = new Instance(this);
+        Instance instance = fields != null ? new Value(this) : new Instance(this);
         if (constructor != null) {
             constructor.bind(instance).call(interpreter, args);
         }
-        return instance;
+        return fields != null ? intern((Value)instance) : instance;
     }
 
     @Override
@@ -0,0 +1,206 @@
+package t.types;
+
+import t.RuntimeError;
+import t.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static t.TokenType.*;
+import static t.types.Methods.param;
+
+public class Table {
+    private static final Methods<Table> methods = new Methods<>();
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+    private int[] index;
+    private int[] hashes;
+    private Object[] keys;
+    private Object[] values;
+    private int used = 0;
+    private int size = 0;
+
+    private Function[] bound;
+
+    static {
+        methods.add(FREE, "free", "get", (table, interpreter, token, args) -> table.get(token, args.get(0)),
+                param(FREE, "free", "key"));
+        methods.add(VOID, "void", "put", (table, interpreter, token, args) -> {
+            table.put(token, args.get(0), args.get(1));
+            return null;
+        }, param(FREE, "free", "key"), param(FREE, "free", "value"));
+        methods.add(FREE, "free", "remove", (table, interpreter, token, args) -> table.remove(token, args.get(0)),
+                param(FREE, "free", "key"));
+        methods.add(BOOL, "bool", "contains", (table, interpreter, token, args) ->
+                new Bool(table.contains(token, args.get(0))), param(FREE, "free", "key"));
+        methods.add(REAL, "real", "len", (table, interpreter, token, args) -> new Real(table.size));
+        methods.add(LIST, "list", "keys", (table, interpreter, token, args) -> table.keys());
+        methods.add(LIST, "list", "values", (table, interpreter, token, args) -> table.values());
+    }
+
+    public Table() {
+        allocate(8, 5);
+    }
+
+    private void allocate(int capacity, int entries) {
+        index = new int[capacity];
+        hashes = new int[entries];
+        keys = new Object[entries];
+        values = new Object[entries];
+    }
+
+    private static int hash(Object key) {
+        return key.hashCode() * 0x9E3779B9;
+    }
+
+    private int start(int hash) {
+        return hash >>> Integer.numberOfLeadingZeros(index.length - 1) & index.length - 1;
+    }
+
+    private int find(Object key, int hash) {
+        int mask = index.length - 1;
+        for (int i = start(hash); ; i = i + 1 & mask) {
+            int slot = index[i];
+            if (slot == EMPTY) {
+                return -1;
+            }
+            if (slot != DELETED) {
+                int entry = slot - 1;
+                if (hashes[entry] == hash && (keys[entry] == key || keys[entry].equals(key))) {
+                    return entry;
+                }
+            }
+        }
+    }
+
+    private void place(int hash, int entry) {
+        int mask = index.length - 1;
+        int i = start(hash);
+        while (index[i] > EMPTY) {
+            i = i + 1 & mask;
+        }
+        index[i] = entry + 1;
+    }
+
+    private void grow() {
+        int capacity = index.length;
+        while (size * 3 >= capacity) {
+            capacity *= 2;
+        }
+        int[] oldHashes = hashes;
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldUsed = used;
+        allocate(capacity, capacity * 2 / 3 + 1);
+        used = 0;
+        for (int i = 0; i < oldUsed; i++) {
+            if (oldKeys[i] != null) {
+                hashes[used] = oldHashes[i];
+                keys[used] = oldKeys[i];
+                values[used] = oldValues[i];
+                place(oldHashes[i], used++);
+            }
+        }
+    }
+
+    private Object checkKey(Token token, Object key) {
+        if (key == null) {
+            throw new RuntimeError(token, "KeyError", "Map keys cannot be nil.");
+        }
+        return key;
+    }
+
+    public boolean contains(Token token, Object key) {
+        checkKey(token, key);
+        return find(key, hash(key)) >= 0;
+    }
+
+    public Object get(Token token, Object key) {
+        checkKey(token, key);
+        int entry = find(key, hash(key));
+        if (entry < 0) {
+            throw new RuntimeError(token, "KeyError", "Map has no key '" + key + "'.");
+        }
+        return values[entry];
+    }
+
+    public void put(Token token, Object key, Object value) {
+        checkKey(token, key);
+        int hash = hash(key);
+        int entry = find(key, hash);
+        if (entry >= 0) {
+            values[entry] = value;
+            return;
+        }
+        if (used == keys.length) {
+            grow();
+        }
+        hashes[used] = hash;
+        keys[used] = key;
+        values[used] = value;
+        place(hash, used++);
+        size++;
+    }
+
+    public Object remove(Token token, Object key) {
+        checkKey(token, key);
+        int hash = hash(key);
+        int mask = index.length - 1;
+        for (int i = start(hash); index[i] != EMPTY; i = i + 1 & mask) {
+            int entry = index[i] - 1;
+            if (index[i] != DELETED && hashes[entry] == hash && keys[entry].equals(key)) {
+                Object value = values[entry];
+                index[i] = DELETED;
+                keys[entry] = null;
+                values[entry] = null;
+                size--;
+                return value;
+            }
+        }
+        throw new RuntimeError(token, "KeyError", "Map has no key '" + key + "'.");
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Sequence keys() {
+        return entries(keys);
+    }
+
+    public Sequence values() {
+        return entries(values);
+    }
+
+    private Sequence entries(Object[] column) {
+        List<Object> elements = new ArrayList<>(size);
+        for (int i = 0; i < used; i++) {
+            if (keys[i] != null) {
+                elements.add(column[i]);
+            }
+        }
+        return new Sequence(elements);
+    }
+
+    public Function method(Token name) {
+        if (bound == null) {
+            bound = methods.table();
+        }
+        return methods.bind(this, bound, name);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < used; i++) {
+            if (keys[i] != null) {
+                if (builder.length() > 1) {
+                    builder.append(", ");
+                }
+                builder.append(keys[i]).append(": ").append(values[i] == null ? "nil" : values[i].toString());
+            }
+        }
+        return builder.append("}").toString();
+    }
+}
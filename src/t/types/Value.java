@@ -0,0 +1,63 @@
+package t.types;
+
+import t.RuntimeError;
+import t.Token;
+
+import java.util.Arrays;
+
+public class Value extends Instance {
+    private final Object[] fields;
+    private boolean frozen = false;
+
+    Value(Struct struct) {
+        super(struct, null);
+        this.fields = new Object[struct.fieldCount()];
+    }
+
+    void freeze() {
+        frozen = true;
+    }
+
+    boolean isScalar() {
+        for (Object field : fields) {
+            if (!(field == null || field instanceof Real || field instanceof Char || field instanceof Bool ||
+                    field instanceof Enum.EnumType || field instanceof Value && ((Value)field).isScalar())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    boolean hasAttr(String name) {
+        int field = getStruct().fieldOf(name);
+        return field >= 0 && fields[field] != null;
+    }
+
+    @Override
+    Object getAttr(String name) {
+        return fields[getStruct().fieldOf(name)];
+    }
+
+    @Override
+    public void set(Token name, Object value) {
+        if (frozen) {
+            throw new RuntimeError(name, "AttrError", "Cannot assign to attribute of immutable struct.");
+        }
+        fields[getStruct().fieldOf(name.getLexeme())] = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof Value) {
+            Value other = (Value)o;
+            return getStruct() == other.getStruct() && Arrays.equals(fields, other.fields);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(getStruct()) * 31 + Arrays.hashCode(fields);
+    }
+}